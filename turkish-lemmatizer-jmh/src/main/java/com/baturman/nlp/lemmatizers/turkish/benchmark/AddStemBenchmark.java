@@ -0,0 +1,70 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.baturman.nlp.lemmatizers.turkish.NotAcceptableCharacterException;
+import com.baturman.nlp.lemmatizers.turkish.TurkishLemmatizer;
+
+/**
+ * Time to load a dictionary with {@link TurkishLemmatizer#addStem(String)}.
+ *
+ * @author Baturman SEN
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddStemBenchmark {
+
+	@Param({ "1000", "10000", "100000"})
+	private int dictionarySize;
+
+	private String [] stems;
+
+	@Setup
+	public void setUp(){
+		stems = Dictionaries.syntheticStems(dictionarySize, 42);
+	}
+
+	@Benchmark
+	public TurkishLemmatizer addStem() throws NotAcceptableCharacterException{
+		TurkishLemmatizer lemmatizer = new TurkishLemmatizer();
+		for (int i = 0; i < stems.length; i++) {
+			lemmatizer.addStem(stems[i]);
+		}
+		return lemmatizer;
+	}
+}
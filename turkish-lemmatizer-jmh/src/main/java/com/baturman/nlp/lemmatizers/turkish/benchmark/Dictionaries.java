@@ -0,0 +1,94 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish.benchmark;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+import com.baturman.nlp.lemmatizers.turkish.NotAcceptableCharacterException;
+import com.baturman.nlp.lemmatizers.turkish.TurkishLemmatizer;
+
+/**
+ * Builds synthetic stem dictionaries for benchmarks. Stems are random syllable sequences, so dictionaries of any size
+ * have the letter distribution of Turkish words without depending on a word list. Real stems of the words that
+ * benchmarks lemmatize are always added.
+ *
+ * @author Baturman SEN
+ *
+ */
+final class Dictionaries {
+
+	/**
+	 * Stems of the words lemmatized in {@link LemmatizeBenchmark}.
+	 */
+	static final String [] STEMS = { "kitap", "kulak", "ağaç", "metot", "bekle", "özle", "de", "oğul", "gönül", "sabır",
+			"küçük", "alçak", "yüksek", "sağlam", "kırmızı", "yeşil", "baş", "başbakan", "hastane", "elazığ"};
+
+	private static final String CONSONANTS = "bcçdfghjklmnprsştvyz";
+	private static final String VOWELS = "aeıioöuü";
+
+	private Dictionaries() {
+	}
+
+	/**
+	 * Creates distinct random stems of two or three syllables.
+	 *
+	 * @param count number of stems.
+	 * @param seed seed of random generator. Same seed gives same stems.
+	 * @return stems.
+	 */
+	static String [] syntheticStems(int count, long seed){
+		Random random = new Random(seed);
+		Set<String> stems = new LinkedHashSet<String>();
+		StringBuilder sb = new StringBuilder();
+		while (stems.size() < count){
+			sb.setLength(0);
+			int syllables = 2 + random.nextInt(2);
+			for (int i = 0; i < syllables; i++) {
+				sb.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+				sb.append(VOWELS.charAt(random.nextInt(VOWELS.length())));
+				if (random.nextBoolean()){
+					sb.append(CONSONANTS.charAt(random.nextInt(CONSONANTS.length())));
+				}
+			}
+			stems.add(sb.toString());
+		}
+		return stems.toArray(new String[count]);
+	}
+
+	/**
+	 * Creates a frozen lemmatizer that holds {@link #STEMS} and synthetic stems.
+	 *
+	 * @param size number of stems in dictionary.
+	 * @return lemmatizer.
+	 * @throws NotAcceptableCharacterException never, stems are built from Turkish letters.
+	 */
+	static TurkishLemmatizer build(int size) throws NotAcceptableCharacterException{
+		TurkishLemmatizer lemmatizer = new TurkishLemmatizer();
+		for (String stem : STEMS) {
+			lemmatizer.addStem(stem);
+		}
+		for (String stem : syntheticStems(Math.max(0, size - STEMS.length), 42)) {
+			lemmatizer.addStem(stem);
+		}
+		lemmatizer.freeze();
+		return lemmatizer;
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.baturman.nlp.lemmatizers.turkish.NotAcceptableCharacterException;
+import com.baturman.nlp.lemmatizers.turkish.TurkishLemmatizer;
+
+/**
+ * Throughput of {@link TurkishLemmatizer#lemmatize(String)}. Each benchmark lemmatizes words whose lemma is found
+ * by one control, so a regression in a single control shows up in its own score. Run with <code>-prof gc</code> to
+ * see allocation rate per word.
+ * <pre>
+ * java -jar target/benchmarks.jar LemmatizeBenchmark -prof gc
+ * </pre>
+ *
+ * @author Baturman SEN
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LemmatizeBenchmark {
+
+	private static final int WORDS = 3;
+
+	private static final String [] UNSUZ_YUMUSAMA = { "kitabım", "kulağım", "metodumuzu"};
+	private static final String [] UNLU_DARALMASI = { "bekliyor", "özlüyorum", "diyorum"};
+	private static final String [] UNLU_DUSMESI = { "oğlum", "gönlüm", "sabrım"};
+	private static final String [] UNSUZ_DUSMESI = { "küçücük", "alçalmak", "yükselmek"};
+	private static final String [] PEKISTIRME = { "sapasağlam", "kıpkırmızı", "yemyeşil"};
+	private static final String [] EN_UZUN_KOK = { "başbakanın", "hastanelik", "elazığlı"};
+
+	@Param({ "1000", "10000", "100000"})
+	private int dictionarySize;
+
+	private TurkishLemmatizer lemmatizer;
+
+	@Setup
+	public void setUp() throws NotAcceptableCharacterException{
+		lemmatizer = Dictionaries.build(dictionarySize);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public void unsuzYumusama(Blackhole bh) throws NotAcceptableCharacterException{
+		lemmatize(UNSUZ_YUMUSAMA, bh);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public void unluDaralmasi(Blackhole bh) throws NotAcceptableCharacterException{
+		lemmatize(UNLU_DARALMASI, bh);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public void unluDusmesi(Blackhole bh) throws NotAcceptableCharacterException{
+		lemmatize(UNLU_DUSMESI, bh);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public void unsuzDusmesi(Blackhole bh) throws NotAcceptableCharacterException{
+		lemmatize(UNSUZ_DUSMESI, bh);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public void pekistirme(Blackhole bh) throws NotAcceptableCharacterException{
+		lemmatize(PEKISTIRME, bh);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public void enUzunKok(Blackhole bh) throws NotAcceptableCharacterException{
+		lemmatize(EN_UZUN_KOK, bh);
+	}
+
+	private void lemmatize(String [] words, Blackhole bh) throws NotAcceptableCharacterException{
+		for (int i = 0; i < words.length; i++) {
+			bh.consume(lemmatizer.lemmatize(words[i]));
+		}
+	}
+}
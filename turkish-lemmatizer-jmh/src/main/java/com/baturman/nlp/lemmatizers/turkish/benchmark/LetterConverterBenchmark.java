@@ -0,0 +1,70 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.baturman.nlp.lemmatizers.turkish.LetterConverter;
+
+/**
+ * Throughput of {@link LetterConverter#convertString(String)} with default rules, for words that need no conversion
+ * and for words that have accented letters.
+ *
+ * @author Baturman SEN
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LetterConverterBenchmark {
+
+	private final LetterConverter converter = new LetterConverter(true);
+
+	private String plain = "kitaplarımızdan";
+	private String accented = "hâlâ";
+	private String mixed = "rüzgârın kâğıtları önünde uçuşuyordu";
+
+	@Benchmark
+	public String plain(){
+		return converter.convertString(plain);
+	}
+
+	@Benchmark
+	public String accented(){
+		return converter.convertString(accented);
+	}
+
+	@Benchmark
+	public String mixed(){
+		return converter.convertString(mixed);
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+/**
+ * Reusable {@link CharSequence} view of a part of a character array. Characters are not copied.
+ *
+ * @author Baturman SEN
+ *
+ */
+final class CharSlice implements CharSequence {
+	private char [] buffer;
+	private int offset;
+	private int length;
+
+	/**
+	 * Points view to given part of buffer.
+	 *
+	 * @param buffer Characters
+	 * @param offset Offset of the first character
+	 * @param length Number of characters
+	 */
+	void set(char [] buffer, int offset, int length){
+		this.buffer = buffer;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length){
+			throw new StringIndexOutOfBoundsException(index);
+		}
+		return buffer[offset + index];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end){
+			throw new StringIndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+		}
+		return new String(buffer, offset + start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return new String(buffer, offset, length);
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+/**
+ * Controls that are applied to a word to find its stem. Name of a control is the name reported in traces.
+ *
+ * @author Baturman SEN
+ *
+ */
+public enum Control {
+
+	/**
+	 * Longest stem that word starts with.
+	 */
+	EN_UZUN_KOK_KONTROLU,
+
+	/**
+	 * pçtk olayı: kitap -> kitabı
+	 */
+	UNSUZ_YUMUSAMA_KONTROLU,
+
+	/**
+	 * bekl-e-mek bekl-i-yor olayı
+	 */
+	UNLU_DARALMASI_KONTROLU,
+
+	/**
+	 * oğul oğlum olayı
+	 */
+	UNLU_DUSMESI_KONTROLU,
+
+	/**
+	 * küçücük, ufacık, yükselmek, alçalmak
+	 */
+	UNSUZ_DUSMESI_KONTROLU,
+
+	/**
+	 * sapasağlam -> sağlam
+	 */
+	PEKISTIRME_KONTROLU,
+
+	/**
+	 * sana -> sen, bana -> ben
+	 */
+	UNLU_DEGISIMI;
+
+	private static final Control [] VALUES = values();
+
+	/**
+	 * @param ordinal ordinal of control.
+	 * @return control with given ordinal.
+	 */
+	static Control of(int ordinal){
+		return VALUES[ordinal];
+	}
+
+	/**
+	 * @return bit of control in a trace mask.
+	 */
+	int bit(){
+		return 1 << ordinal();
+	}
+}
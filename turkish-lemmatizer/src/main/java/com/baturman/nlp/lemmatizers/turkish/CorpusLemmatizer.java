@@ -0,0 +1,250 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Lemmatizes large corpora in parallel. Corpus is read in chunks that end at token boundaries, chunks are lemmatized
+ * on a {@link ForkJoinPool} and output is written in the order of the corpus. One line is written for each token:
+ * <pre>
+ * token	lemma
+ * </pre>
+ * Tokens are separated by white space. Before lemmatization, default {@link LetterConverter} rules are applied to
+ * tokens and their case is folded with Turkish rules. A token that cannot be lemmatized, because it is shorter than
+ * two letters or has characters outside {@link TurkishAlphabet}, is written as its own lemma.
+ * <br/>
+ * A chunk is never longer than chunk size, so a token that is longer than chunk size is cut into tokens of chunk size.
+ * <br/>
+ * All chunks share the same {@link TurkishLemmatizer}, so its dictionary must not change while a corpus is lemmatized.
+ *
+ * @author Baturman SEN
+ *
+ */
+public class CorpusLemmatizer {
+
+	/**
+	 * Default number of characters read for a chunk.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+	/**
+	 * Chunks that are shorter than this are lemmatized by a single task.
+	 */
+	private static final int SPLIT_THRESHOLD = 1 << 14;
+
+	private final TurkishLemmatizer lemmatizer;
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+
+	/**
+	 * Creates corpus lemmatizer that uses common {@link ForkJoinPool}.
+	 *
+	 * @param lemmatizer {@link TurkishLemmatizer} to be shared by all tasks.
+	 */
+	public CorpusLemmatizer(TurkishLemmatizer lemmatizer) {
+		this(lemmatizer, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates corpus lemmatizer with given parameters.
+	 *
+	 * @param lemmatizer {@link TurkishLemmatizer} to be shared by all tasks.
+	 * @param pool {@link ForkJoinPool} that chunks are lemmatized on.
+	 * @param chunkSize number of characters read for a chunk. It should be much longer than words.
+	 */
+	public CorpusLemmatizer(TurkishLemmatizer lemmatizer, ForkJoinPool pool, int chunkSize) {
+		if (chunkSize < 1){
+			throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+		}
+		this.lemmatizer = lemmatizer;
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Lemmatizes corpus file and writes results to output file.
+	 *
+	 * @param corpus path of UTF-8 corpus.
+	 * @param output path of UTF-8 output. Existing file is replaced.
+	 * @throws IOException if corpus cannot be read or output cannot be written.
+	 */
+	public void lemmatize(Path corpus, Path output) throws IOException{
+		Reader in = Files.newBufferedReader(corpus, StandardCharsets.UTF_8);
+		try {
+			Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+			try {
+				lemmatize(in, out);
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Lemmatizes corpus and writes results. At most two chunks per worker thread are kept in memory.
+	 *
+	 * @param in corpus. It is not closed.
+	 * @param out output. It is flushed, but not closed.
+	 * @throws IOException if corpus cannot be read or output cannot be written.
+	 */
+	public void lemmatize(Reader in, Writer out) throws IOException{
+		Reader reader = in instanceof BufferedReader ? in : new BufferedReader(in);
+		Writer writer = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+		int window = Math.max(2, pool.getParallelism() * 2);
+		ArrayDeque<ChunkTask> pending = new ArrayDeque<ChunkTask>();
+
+		char [] buffer = new char[chunkSize];
+		StringBuilder carry = new StringBuilder();
+		int read;
+		// Chunk is carry and the characters read after it, so it is never longer than chunk size
+		while ((read = reader.read(buffer, 0, chunkSize - carry.length())) != -1){
+			// Cut chunk after last white space, rest belongs to next chunk
+			int cut = read;
+			while (cut > 0 && !Character.isWhitespace(buffer[cut - 1])){
+				cut--;
+			}
+			if (cut == 0 && carry.length() + read < chunkSize){
+				carry.append(buffer, 0, read);
+				continue;
+			}
+			// A token that fills the whole chunk is cut at chunk size
+			carry.append(buffer, 0, cut == 0 ? read : cut);
+			submit(carry.toString(), pending);
+			carry.setLength(0);
+			if (cut > 0){
+				carry.append(buffer, cut, read - cut);
+			}
+
+			while (pending.size() >= window){
+				pending.removeFirst().write(writer);
+			}
+		}
+		if (carry.length() > 0){
+			submit(carry.toString(), pending);
+		}
+		while (!pending.isEmpty()){
+			pending.removeFirst().write(writer);
+		}
+		writer.flush();
+	}
+
+	private void submit(String chunk, ArrayDeque<ChunkTask> pending){
+		ChunkTask task = new ChunkTask(chunk, 0, chunk.length());
+		pool.execute(task);
+		pending.add(task);
+	}
+
+	/**
+	 * Lemmatizes tokens in given range of text.
+	 *
+	 * @param text Text
+	 * @param start offset of first character
+	 * @param end offset after last character
+	 * @return output lines of tokens.
+	 */
+	String lemmatizeTokens(String text, int start, int end){
+		List<String> tokens = new ArrayList<String>();
+		int i = start;
+		while (i < end){
+			while (i < end && Character.isWhitespace(text.charAt(i))){
+				i++;
+			}
+			int first = i;
+			while (i < end && !Character.isWhitespace(text.charAt(i))){
+				i++;
+			}
+			if (i > first){
+				tokens.add(text.substring(first, i));
+			}
+		}
+
+		String [] lemmas = TextLemmatizer.lemmatizeTokens(lemmatizer, tokens);
+		StringBuilder sb = new StringBuilder((end - start) * 2);
+		for (int t = 0; t < tokens.size(); t++) {
+			sb.append(tokens.get(t)).append('\t').append(lemmas[t]).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Lemmatizes a range of a chunk. Long ranges are split at a token boundary near their middle and halves are
+	 * lemmatized in parallel. Halves share the text of chunk, and their outputs are written in order by
+	 * {@link #write(Writer)} instead of being joined.
+	 */
+	private class ChunkTask extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+
+		private final String text;
+		private final int start;
+		private final int end;
+		private ChunkTask left;
+		private ChunkTask right;
+		private String output;
+
+		private ChunkTask(String text, int start, int end) {
+			this.text = text;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			int middle = start + (end - start) / 2;
+			while (middle < end && !Character.isWhitespace(text.charAt(middle))){
+				middle++;
+			}
+			if (end - start <= SPLIT_THRESHOLD || middle == end){
+				output = lemmatizeTokens(text, start, end);
+				return;
+			}
+
+			left = new ChunkTask(text, start, middle);
+			right = new ChunkTask(text, middle, end);
+			invokeAll(left, right);
+		}
+
+		/**
+		 * Waits for task and writes its output.
+		 */
+		private void write(Writer writer) throws IOException{
+			join();
+			if (output != null){
+				writer.write(output);
+			}else{
+				left.write(writer);
+				right.write(writer);
+			}
+		}
+	}
+}
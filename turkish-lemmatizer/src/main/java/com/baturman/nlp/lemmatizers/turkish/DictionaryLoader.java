@@ -0,0 +1,340 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Loads stem dictionaries in bulk.
+ * <br/>
+ * A word list is a UTF-8 text with one stem per line. A stem may be followed by its type, separated by white space.
+ * Empty lines and lines starting with <code>#</code> are skipped.
+ * <pre>
+ * kitap	NOUN
+ * bekle	VERB
+ * sabır
+ * </pre>
+ * A loaded dictionary can be compiled into a binary snapshot with {@link #writeSnapshot(TurkishLemmatizer, Path)}.
+ * {@link #openSnapshot(Path)} memory-maps a snapshot and uses it as it is, so nothing is rebuilt at startup.
+ * <br/>
+ * A diff between two word lists, written by {@link #writeDiff(Path, Path, OutputStream)}, has one change per line:
+ * <code>+</code> followed by a stem and its type adds the stem, <code>-</code> followed by a stem removes it.
+ * {@link #applyDiff(TurkishLemmatizer, InputStream)} applies a diff to a loaded dictionary as one {@link StemBatch}.
+ * <pre>
+ * -sabır
+ * +sabır	NOUN
+ * +kalem
+ * </pre>
+ *
+ * @author Baturman SEN
+ *
+ */
+public class DictionaryLoader {
+
+	private static final Locale TR_LOCALE = new Locale("tr", "TR");
+
+	private DictionaryLoader() {
+	}
+
+	/**
+	 * Adds stems in given word list to lemmatizer.
+	 *
+	 * @param lemmatizer {@link TurkishLemmatizer} that stems are added to.
+	 * @param in UTF-8 word list. It is not closed.
+	 * @return number of added stems. Stems that are already in dictionary are not counted.
+	 * @throws IOException if word list cannot be read.
+	 * @throws NotAcceptableCharacterException if a stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 */
+	public static int loadWordList(TurkishLemmatizer lemmatizer, InputStream in) throws IOException, NotAcceptableCharacterException{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		int count = 0;
+		boolean first = true;
+		String line;
+		while ((line = reader.readLine()) != null){
+			String [] columns = columns(line, first);
+			first = false;
+			if (columns != null && lemmatizer.addStemIfAbsent(columns[0], columns.length > 1 ? columns[1] : null)){
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Splits a line of word list or diff into columns.
+	 *
+	 * @param line line
+	 * @param first <code>true</code> for the first line, which may start with a byte order mark.
+	 * @return columns, or <code>null</code> if line is empty or a comment.
+	 */
+	private static String [] columns(String line, boolean first){
+		if (first && line.length() > 0 && line.charAt(0) == '\uFEFF'){
+			// Byte order mark
+			line = line.substring(1);
+		}
+		line = line.trim();
+		if (line.length() == 0 || line.charAt(0) == '#'){
+			return null;
+		}
+		return line.split("\\s+");
+	}
+
+	/**
+	 * Reads stems of word list with their types. A stem that is listed more than once keeps its first type.
+	 *
+	 * @param path path of UTF-8 word list.
+	 * @return types of stems in lower case, in the order of word list.
+	 */
+	private static Map<String, String> readWordList(Path path) throws IOException{
+		Map<String, String> stems = new LinkedHashMap<String, String>();
+		BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+		try {
+			boolean first = true;
+			String line;
+			while ((line = reader.readLine()) != null){
+				String [] columns = columns(line, first);
+				first = false;
+				if (columns != null){
+					String stem = columns[0].toLowerCase(TR_LOCALE);
+					if (!stems.containsKey(stem)){
+						stems.put(stem, columns.length > 1 ? columns[1] : StemIndex.DEFAULT_TYPE);
+					}
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return stems;
+	}
+
+	/**
+	 * Writes the changes that turn one word list into another. A stem whose type has changed is removed and added.
+	 *
+	 * @param oldList path of UTF-8 word list that the diff is applied to.
+	 * @param newList path of UTF-8 word list after the diff.
+	 * @param out stream that UTF-8 diff is written to. It is not closed.
+	 * @return number of changes.
+	 * @throws IOException if a word list cannot be read or diff cannot be written.
+	 */
+	public static int writeDiff(Path oldList, Path newList, OutputStream out) throws IOException{
+		Map<String, String> oldStems = readWordList(oldList);
+		Map<String, String> newStems = readWordList(newList);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		int count = 0;
+		for (String stem : oldStems.keySet()) {
+			String type = newStems.get(stem);
+			if (type == null || !type.equals(oldStems.get(stem))){
+				writer.write("-" + stem + "\n");
+				count++;
+			}
+		}
+		for (Map.Entry<String, String> entry : newStems.entrySet()) {
+			String type = entry.getValue();
+			if (!type.equals(oldStems.get(entry.getKey()))){
+				writer.write("+" + entry.getKey() + (StemIndex.DEFAULT_TYPE.equals(type) ? "" : "\t" + type) + "\n");
+				count++;
+			}
+		}
+		writer.flush();
+		return count;
+	}
+
+	/**
+	 * Applies a diff to stems of lemmatizer. Changes are published together, so words that are being lemmatized see
+	 * either the whole diff or none of it.
+	 *
+	 * @param lemmatizer {@link TurkishLemmatizer} that diff is applied to.
+	 * @param in UTF-8 diff. It is not closed.
+	 * @return number of changes in diff.
+	 * @throws IOException if diff cannot be read or a line is neither an addition nor a removal.
+	 * @throws NotAcceptableCharacterException if a stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 */
+	public static int applyDiff(TurkishLemmatizer lemmatizer, InputStream in) throws IOException, NotAcceptableCharacterException{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		StemBatch batch = lemmatizer.newBatch();
+		boolean first = true;
+		String line;
+		while ((line = reader.readLine()) != null){
+			String [] columns = columns(line, first);
+			first = false;
+			if (columns == null){
+				continue;
+			}
+			String stem = columns[0].substring(1);
+			if (columns[0].charAt(0) == '+' && stem.length() > 0){
+				batch.addStem(stem, columns.length > 1 ? columns[1] : null);
+			}else if (columns[0].charAt(0) == '-' && stem.length() > 0){
+				batch.removeStem(stem);
+			}else{
+				throw new IOException("Not a diff line: " + line);
+			}
+		}
+		int count = batch.size();
+		batch.commit();
+		return count;
+	}
+
+	/**
+	 * Applies a diff to stems of lemmatizer, see {@link #applyDiff(TurkishLemmatizer, InputStream)}.
+	 *
+	 * @param lemmatizer {@link TurkishLemmatizer} that diff is applied to.
+	 * @param path path of UTF-8 diff.
+	 * @return number of changes in diff.
+	 * @throws IOException if diff cannot be read or a line is neither an addition nor a removal.
+	 * @throws NotAcceptableCharacterException if a stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 */
+	public static int applyDiff(TurkishLemmatizer lemmatizer, Path path) throws IOException, NotAcceptableCharacterException{
+		InputStream in = Files.newInputStream(path);
+		try {
+			return applyDiff(lemmatizer, in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Adds stems in given word list to lemmatizer.
+	 *
+	 * @param lemmatizer {@link TurkishLemmatizer} that stems are added to.
+	 * @param path path of UTF-8 word list.
+	 * @return number of added stems.
+	 * @throws IOException if word list cannot be read.
+	 * @throws NotAcceptableCharacterException if a stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 */
+	public static int loadWordList(TurkishLemmatizer lemmatizer, Path path) throws IOException, NotAcceptableCharacterException{
+		InputStream in = Files.newInputStream(path);
+		try {
+			return loadWordList(lemmatizer, in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Writes binary snapshot of stem dictionary of given lemmatizer.
+	 *
+	 * @param lemmatizer {@link TurkishLemmatizer} to be written.
+	 * @param out stream that snapshot is written to. It is not closed.
+	 * @throws IOException if snapshot cannot be written.
+	 */
+	public static void writeSnapshot(TurkishLemmatizer lemmatizer, OutputStream out) throws IOException{
+		SnapshotStemIndex.write(lemmatizer.getStemIndex(), out);
+	}
+
+	/**
+	 * Writes binary snapshot of stem dictionary of given lemmatizer.
+	 *
+	 * @param lemmatizer {@link TurkishLemmatizer} to be written.
+	 * @param path path of snapshot file. Existing file is replaced.
+	 * @throws IOException if snapshot cannot be written.
+	 */
+	public static void writeSnapshot(TurkishLemmatizer lemmatizer, Path path) throws IOException{
+		OutputStream out = new BufferedOutputStream(Files.newOutputStream(path));
+		try {
+			writeSnapshot(lemmatizer, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Creates a lemmatizer that reads stems from snapshot in given buffer. Returned lemmatizer is frozen.
+	 *
+	 * @param buffer buffer holding snapshot, starting at its current position. Buffer must not be modified afterwards.
+	 * @return frozen {@link TurkishLemmatizer}.
+	 * @throws IOException if buffer does not hold a snapshot.
+	 */
+	public static TurkishLemmatizer openSnapshot(ByteBuffer buffer) throws IOException{
+		return new TurkishLemmatizer(new SnapshotStemIndex(buffer));
+	}
+
+	/**
+	 * Memory-maps given snapshot file and creates a lemmatizer that reads stems from it. Returned lemmatizer is frozen.
+	 * Stems stay in the read-only mapping instead of heap, and all processes that open the same file share one copy
+	 * of it in page cache.
+	 *
+	 * @param path path of snapshot file.
+	 * @return frozen {@link TurkishLemmatizer}.
+	 * @throws IOException if file cannot be mapped or does not hold a snapshot.
+	 */
+	public static TurkishLemmatizer openSnapshot(Path path) throws IOException{
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return openSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Compiles a word list into a snapshot, or writes diff of two word lists with <code>-d</code>.
+	 * <br/>
+	 * Usage: <code>DictionaryLoader (&lt;word list&gt; &lt;snapshot&gt; | -d &lt;old word list&gt; &lt;new word list&gt; &lt;diff&gt;)</code>
+	 *
+	 * @param args word list path and snapshot path, or <code>-d</code> and word list paths and diff path.
+	 */
+	public static void main(String[] args) {
+		boolean diff = args.length == 4 && "-d".equals(args[0]);
+		if (args.length != 2 && !diff){
+			System.err.println("Usage: DictionaryLoader (<word list> <snapshot> | -d <old word list> <new word list> <diff>)");
+			System.exit(1);
+		}
+
+		try {
+			if (diff){
+				OutputStream out = Files.newOutputStream(Paths.get(args[3]));
+				try {
+					int count = writeDiff(Paths.get(args[1]), Paths.get(args[2]), out);
+					System.out.println(count + " changes written to " + args[3]);
+				} finally {
+					out.close();
+				}
+				return;
+			}
+			TurkishLemmatizer lemmatizer = new TurkishLemmatizer();
+			int count = loadWordList(lemmatizer, Paths.get(args[0]));
+			writeSnapshot(lemmatizer, Paths.get(args[1]));
+			System.out.println(count + " stems written to " + args[1]);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		} catch (NotAcceptableCharacterException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive integers.
+ *
+ * @author Baturman SEN
+ *
+ */
+final class IntList {
+	private int [] values;
+	private int size = 0;
+
+	/**
+	 * Creates an empty list.
+	 */
+	IntList() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty list with given capacity.
+	 *
+	 * @param capacity Initial capacity
+	 */
+	IntList(int capacity) {
+		this.values = new int[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * Appends value to list.
+	 *
+	 * @param value Value
+	 */
+	void add(int value){
+		if (size == values.length){
+			values = Arrays.copyOf(values, size * 2);
+		}
+		values[size++] = value;
+	}
+
+	/**
+	 * @param index Index
+	 * @return value at given index.
+	 */
+	int get(int index){
+		if (index >= size){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return values[index];
+	}
+
+	/**
+	 * @return number of values in list.
+	 */
+	int size(){
+		return size;
+	}
+
+	/**
+	 * Removes all values.
+	 */
+	void clear(){
+		size = 0;
+	}
+
+	/**
+	 * Sorts values between given indexes into ascending order.
+	 *
+	 * @param from first index, inclusive
+	 * @param to last index, exclusive
+	 */
+	void sort(int from, int to){
+		Arrays.sort(values, from, to);
+	}
+}
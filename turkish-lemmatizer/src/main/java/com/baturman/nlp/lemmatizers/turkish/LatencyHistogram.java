@@ -0,0 +1,120 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies, or other non-negative values, that threads record into without locking. Values are counted
+ * in log-linear buckets: every power of two is split into 32 buckets, so a percentile is reported within about 3% of
+ * the recorded value.
+ * <br/>
+ * Each bucket is a {@link LongAdder}, so threads that record the same value update separate cells instead of
+ * contending for one counter.
+ *
+ * @author Baturman SEN
+ *
+ */
+class LatencyHistogram {
+
+	private static final int SUB_BITS = 5;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+
+	private final LongAdder [] counts = new LongAdder[(64 - SUB_BITS) * SUB_COUNT];
+
+	/**
+	 * Creates empty histogram.
+	 */
+	LatencyHistogram() {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records a value.
+	 *
+	 * @param value value, like a latency in nanoseconds. Negative values are recorded as <code>0</code>.
+	 */
+	void record(long value){
+		counts[indexOf(Math.max(0, value))].increment();
+	}
+
+	/**
+	 * @return number of recorded values.
+	 */
+	long count(){
+		long count = 0;
+		for (LongAdder bucket : counts) {
+			count += bucket.sum();
+		}
+		return count;
+	}
+
+	/**
+	 * @param percentile percentile between <code>0</code> and <code>100</code>.
+	 * @return upper bound of the bucket that holds given percentile, or <code>0</code> if nothing has been recorded.
+	 */
+	long percentile(double percentile){
+		long [] snapshot = new long[counts.length];
+		long total = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i] = counts[i].sum();
+			total += snapshot[i];
+		}
+		if (total == 0){
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			seen += snapshot[i];
+			if (seen >= rank){
+				return upperBound(i);
+			}
+		}
+		return upperBound(snapshot.length - 1);
+	}
+
+	/**
+	 * Clears recorded values.
+	 */
+	void reset(){
+		for (LongAdder bucket : counts) {
+			bucket.reset();
+		}
+	}
+
+	private static int indexOf(long value){
+		if (value < SUB_COUNT){
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return ((shift + 1) << SUB_BITS) + (int) (value >>> shift) - SUB_COUNT;
+	}
+
+	private static long upperBound(int index){
+		if (index < SUB_COUNT){
+			return index;
+		}
+		int shift = (index >> SUB_BITS) - 1;
+		long mantissa = (index & (SUB_COUNT - 1)) + SUB_COUNT;
+		return ((mantissa + 1) << shift) - 1;
+	}
+}
@@ -18,87 +18,160 @@
 
 package com.baturman.nlp.lemmatizers.turkish;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
 /**
- * Test class.
+ * Lemmatizes a corpus file with {@link CorpusLemmatizer} and writes <code>token\tlemma</code> lines.
+ * <br/>
+ * Usage: <code>Launcher (-w &lt;word list&gt; | -s &lt;snapshot&gt;) [-t &lt;threads&gt;] (&lt;corpus&gt; [&lt;output&gt;] | -p &lt;port&gt; | -f)</code>
+ * <br/>
+ * Stems are read from a word list (see {@link DictionaryLoader}) or from a snapshot. Output is written to standard
+ * output if no output file is given. With <code>-p</code>, a {@link LemmaServer} is started on given local port
+ * instead, and runs until the process is stopped. With <code>-f</code>, standard input is copied to standard output
+ * through a {@link LemmatizingReader} as it arrives, so each token is replaced by its lemma.
  * 
  * @author Baturman SEN
  *
  */
 public class Launcher {
+
+	private static final String USAGE = "Usage: Launcher (-w <word list> | -s <snapshot>) [-t <threads>] (<corpus> [<output>] | -p <port> | -f)";
+
 	public static void main(String[] args) {
+		Path wordList = null;
+		Path snapshot = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		Path corpus = null;
+		Path output = null;
+		int port = -1;
+		boolean filter = false;
 
-		TurkishLemmatizer tl = new TurkishLemmatizer();
 		try {
-			tl.addStem("kitap");
-			tl.addStem("kulak");
-			tl.addStem("ağaç");
-			tl.addStem("yemek");
-			tl.addStem("kalp");
-			tl.addStem("çelenk");
-			tl.addStem("metot");
-			tl.addStem("hukuk");
-			tl.addStem("genç");
-			tl.addStem("et");
-			tl.addStem("bekle");
-			tl.addStem("kal");
-			tl.addStem("özle");
-			tl.addStem("solla");
-			tl.addStem("de");
-			tl.addStem("ye");
-			tl.addStem("oğul");
-			tl.addStem("gönül");
-			tl.addStem("küçük");
-			tl.addStem("nesil");
-			tl.addStem("resim");
-			tl.addStem("resmi");
-			tl.addStem("alçak");
-			tl.addStem("yüksek");
-			tl.addStem("seyrek");
-			tl.addStem("seyir");
-			tl.addStem("af");
-			tl.addStem("zan");
-			tl.addStem("sağlam");
-			tl.addStem("kırmızı");
-			tl.addStem("yeşil");
-			tl.addStem("sarı");
-			tl.addStem("karın");
-			tl.addStem("hastane");
-			tl.addStem("baş");
-			tl.addStem("başbakan");
-			tl.addStem("elazığ");
-			tl.addStem("koğuş");
-			tl.addStem("sabır");
-			tl.addStem("kork");
-			tl.addStem("sen");
-			tl.addStem("bahçe");
-
-			String [] word = {"kitabım", "kulağım", "ağacımız", "yemeğe", "kalbim", "çelengi", "metodumuzu", "hukukun", "hukuğun", "gencecik", "ediliyor",
-					"bekliyor", "kalmıyor", "özlüyorum", "solluyorum", "solladım", "diyorum", "diyerek", "deyince", "yiyerek", "yedirdi", "oğlum", "gönlüm",
-					"küçüğüm", "neslimiz", "resminde", "resmi", "küçücük", "alçalmak", "yükselmek", "seyreldi", "seyrettim", "affetmek", "zannedersen", "sapasağlam",
-					"kıpkırmızı", "yemyeşil", "sarardım", "sapsarı", "karnından", "karındaş", "hastanelik", "başından", "başbakanın", "elazığlı", "koğuşunda", "sabrım",
-					"sabreden", "korktu", "sana", "bahçesi"
-			};
-			
-			for (int i = 0; i < word.length; i++) {
-				String message = word[i] + " = ";
-				String defaultStem = tl.lemmatize(word[i]);
-				message += defaultStem;
-				String [] list = tl.getAllCandidates();
-				if (list.length > 1){
-					message += " -> ";
-					for (int j = 0; j < list.length; j++) {
-						message += list[j] + " ";
-					}
+			for (int i = 0; i < args.length; i++) {
+				if ("-w".equals(args[i]) && i + 1 < args.length){
+					wordList = Paths.get(args[++i]);
+				}else if ("-s".equals(args[i]) && i + 1 < args.length){
+					snapshot = Paths.get(args[++i]);
+				}else if ("-t".equals(args[i]) && i + 1 < args.length){
+					threads = Integer.parseInt(args[++i]);
+				}else if ("-p".equals(args[i]) && i + 1 < args.length){
+					port = Integer.parseInt(args[++i]);
+				}else if ("-f".equals(args[i])){
+					filter = true;
+				}else if (corpus == null){
+					corpus = Paths.get(args[i]);
+				}else if (output == null){
+					output = Paths.get(args[i]);
+				}else{
+					usage();
 				}
-				message +="\n";
-				message += tl.getTrace();
-				System.out.println(message);
-				System.out.println();
 			}
+		} catch (NumberFormatException e) {
+			usage();
+		}
+		int modes = (corpus != null ? 1 : 0) + (port >= 0 ? 1 : 0) + (filter ? 1 : 0);
+		if (modes != 1 || (wordList == null) == (snapshot == null) || threads < 1 || port > 65535){
+			usage();
+		}
+
+		if (filter){
+			filter(wordList, snapshot);
+			return;
+		}
+
+		if (port >= 0){
+			serve(wordList, snapshot, port, threads);
+			return;
+		}
 
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			TurkishLemmatizer tl = open(wordList, snapshot);
+
+			CorpusLemmatizer corpusLemmatizer = new CorpusLemmatizer(tl, pool, CorpusLemmatizer.DEFAULT_CHUNK_SIZE);
+			if (output != null){
+				corpusLemmatizer.lemmatize(corpus, output);
+			}else{
+				Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+				Reader in = Files.newBufferedReader(corpus, StandardCharsets.UTF_8);
+				try {
+					corpusLemmatizer.lemmatize(in, out);
+				} finally {
+					in.close();
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
 		} catch (NotAcceptableCharacterException e) {
-			// TODO Auto-generated catch block
 			e.printStackTrace();
+			System.exit(1);
+		} finally {
+			pool.shutdown();
 		}
 	}
+
+	private static void serve(Path wordList, Path snapshot, int port, int threads){
+		try {
+			final LemmaServer server = new LemmaServer(open(wordList, snapshot), port, threads);
+			Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					server.stop();
+				}
+			}));
+			server.start();
+			System.err.println("Listening on 127.0.0.1:" + server.getPort());
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		} catch (NotAcceptableCharacterException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	private static void filter(Path wordList, Path snapshot){
+		try {
+			Reader in = new LemmatizingReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), open(wordList, snapshot));
+			Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+			char [] buffer = new char[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1){
+				out.write(buffer, 0, read);
+				// Lemmas of a stream that never ends are written as they are found
+				out.flush();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		} catch (NotAcceptableCharacterException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	private static TurkishLemmatizer open(Path wordList, Path snapshot) throws IOException, NotAcceptableCharacterException{
+		if (snapshot != null){
+			return DictionaryLoader.openSnapshot(snapshot);
+		}
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		DictionaryLoader.loadWordList(tl, wordList);
+		tl.freeze();
+		return tl;
+	}
+
+	private static void usage(){
+		System.err.println(USAGE);
+		System.exit(1);
+	}
 }
@@ -0,0 +1,348 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded cache of {@link LemmaResult}s keyed by word. Set it with {@link TurkishLemmatizer#setCache(LemmaCache)}
+ * to skip the controls for words that have been lemmatized before. Cache is cleared whenever a stem is added to the
+ * lemmatizer.
+ * <br/>
+ * Words are spread over segments that are locked separately, so threads rarely wait for each other. Each segment
+ * evicts its entries by the {@link Policy} of the cache.
+ *
+ * @author Baturman SEN
+ *
+ */
+public class LemmaCache {
+
+	/**
+	 * Eviction policy of cache.
+	 */
+	public enum Policy{
+		/**
+		 * Least recently used entry is evicted.
+		 */
+		LRU,
+
+		/**
+		 * New entries wait in a small LRU window. An entry that leaves the window replaces the least recently used
+		 * main entry only if it has been looked up more often, as estimated by a count-min sketch. Words that are
+		 * seen once do not push frequent words out.
+		 */
+		TINY_LFU
+	}
+
+	private static final int MAX_SEGMENTS = 16;
+
+	private final int maximumSize;
+	private final Policy policy;
+	private final Segment [] segments;
+	private final AtomicLong generation = new AtomicLong();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates cache that uses {@link Policy#TINY_LFU}.
+	 *
+	 * @param maximumSize maximum number of cached words.
+	 */
+	public LemmaCache(int maximumSize) {
+		this(maximumSize, Policy.TINY_LFU);
+	}
+
+	/**
+	 * Creates cache with given policy.
+	 *
+	 * @param maximumSize maximum number of cached words.
+	 * @param policy eviction policy.
+	 */
+	public LemmaCache(int maximumSize, Policy policy) {
+		if (maximumSize < 1){
+			throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+		}
+		this.maximumSize = maximumSize;
+		this.policy = policy;
+
+		// Keep at least eight entries in a segment
+		int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, maximumSize / 8)));
+		this.segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			int capacity = maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0);
+			segments[i] = new Segment(capacity, policy);
+		}
+	}
+
+	/**
+	 * Looks up result of given word. Lookup is counted as a hit or a miss.
+	 *
+	 * @param word Word
+	 * @return cached result, or <code>null</code>.
+	 */
+	LemmaResult get(String word){
+		LemmaResult result = segmentOf(word).get(word);
+		if (result == null){
+			misses.increment();
+		}else{
+			hits.increment();
+		}
+		return result;
+	}
+
+	/**
+	 * @return current generation of cache. It changes every time cache is invalidated.
+	 */
+	long generation(){
+		return generation.get();
+	}
+
+	/**
+	 * Caches result of given word, unless cache has been invalidated since <code>generation</code> was read.
+	 *
+	 * @param word Word
+	 * @param result Result of word
+	 * @param generation generation of cache read before result was computed, see {@link #generation()}.
+	 */
+	void put(String word, LemmaResult result, long generation){
+		int evicted = segmentOf(word).put(word, result, generation, this.generation);
+		if (evicted > 0){
+			evictions.add(evicted);
+		}
+	}
+
+	/**
+	 * Removes all entries. Counters are kept.
+	 */
+	public void invalidate(){
+		generation.incrementAndGet();
+		for (Segment segment : segments) {
+			segment.clear();
+		}
+	}
+
+	/**
+	 * @return number of cached words.
+	 */
+	public int size(){
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * @return maximum number of cached words.
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * @return eviction policy.
+	 */
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @return number of lookups that found a cached result.
+	 */
+	public long getHitCount(){
+		return hits.sum();
+	}
+
+	/**
+	 * @return number of lookups that found no cached result.
+	 */
+	public long getMissCount(){
+		return misses.sum();
+	}
+
+	/**
+	 * @return number of results that have been dropped to keep cache in its size. Results removed by
+	 * {@link #invalidate()} are not counted.
+	 */
+	public long getEvictionCount(){
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "LemmaCache[policy=" + policy + ", size=" + size() + "/" + maximumSize + ", hits=" + getHitCount()
+				+ ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+	}
+
+	private Segment segmentOf(String word){
+		return segments[spread(word.hashCode()) & (segments.length - 1)];
+	}
+
+	private static int spread(int hash){
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Part of cache that is guarded by its own lock. Maps are kept in access order, so their first entry is the least
+	 * recently used one.
+	 */
+	private static final class Segment{
+		private final int windowCapacity;
+		private final int mainCapacity;
+		private final LinkedHashMap<String, LemmaResult> window;
+		private final LinkedHashMap<String, LemmaResult> main;
+		private final FrequencySketch sketch;
+
+		private Segment(int capacity, Policy policy) {
+			if (policy == Policy.TINY_LFU){
+				this.windowCapacity = Math.max(1, capacity / 100);
+				this.sketch = new FrequencySketch(capacity);
+			}else{
+				this.windowCapacity = 0;
+				this.sketch = null;
+			}
+			this.mainCapacity = capacity - windowCapacity;
+			this.window = new LinkedHashMap<String, LemmaResult>(16, 0.75f, true);
+			this.main = new LinkedHashMap<String, LemmaResult>(16, 0.75f, true);
+		}
+
+		private synchronized LemmaResult get(String word){
+			if (sketch != null){
+				sketch.increment(word);
+			}
+			LemmaResult result = main.get(word);
+			return result != null ? result : window.get(word);
+		}
+
+		/**
+		 * @return number of evicted entries.
+		 */
+		private synchronized int put(String word, LemmaResult result, long generation, AtomicLong current){
+			if (generation != current.get()){
+				return 0;
+			}
+			if (main.containsKey(word)){
+				main.put(word, result);
+				return 0;
+			}
+			if (sketch == null){
+				main.put(word, result);
+				if (main.size() > mainCapacity){
+					removeEldest(main);
+					return 1;
+				}
+				return 0;
+			}
+
+			window.put(word, result);
+			if (window.size() <= windowCapacity){
+				return 0;
+			}
+
+			// Entry leaving the window competes with least recently used main entry
+			Map.Entry<String, LemmaResult> candidate = removeEldest(window);
+			if (main.size() < mainCapacity){
+				main.put(candidate.getKey(), candidate.getValue());
+				return 0;
+			}
+			if (mainCapacity > 0){
+				String victim = main.keySet().iterator().next();
+				if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)){
+					main.remove(victim);
+					main.put(candidate.getKey(), candidate.getValue());
+				}
+			}
+			return 1;
+		}
+
+		private synchronized void clear(){
+			window.clear();
+			main.clear();
+		}
+
+		private synchronized int size(){
+			return window.size() + main.size();
+		}
+
+		private static Map.Entry<String, LemmaResult> removeEldest(LinkedHashMap<String, LemmaResult> map){
+			Iterator<Map.Entry<String, LemmaResult>> it = map.entrySet().iterator();
+			Map.Entry<String, LemmaResult> eldest = it.next();
+			it.remove();
+			return eldest;
+		}
+	}
+
+	/**
+	 * Count-min sketch that estimates how often words have been looked up. Counters saturate at 15 and are halved
+	 * periodically, so the estimates follow recent lookups.
+	 */
+	private static final class FrequencySketch{
+		private static final int [] SEEDS = { 0x97CB3127, 0xB1A83721, 0x8BF7B2C5, 0xC2B2AE35};
+		private static final int MAX_COUNT = 15;
+
+		private final byte [] counters;
+		private final int mask;
+		private final int sampleSize;
+		private int additions = 0;
+
+		private FrequencySketch(int capacity) {
+			int width = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+			this.counters = new byte[width * SEEDS.length];
+			this.mask = width - 1;
+			this.sampleSize = 10 * width;
+		}
+
+		private void increment(String word){
+			int hash = word.hashCode();
+			for (int i = 0; i < SEEDS.length; i++) {
+				int index = indexOf(hash, i);
+				if (counters[index] < MAX_COUNT){
+					counters[index]++;
+				}
+			}
+			if (++additions == sampleSize){
+				for (int i = 0; i < counters.length; i++) {
+					counters[i] >>= 1;
+				}
+				additions /= 2;
+			}
+		}
+
+		private int frequency(String word){
+			int hash = word.hashCode();
+			int frequency = MAX_COUNT;
+			for (int i = 0; i < SEEDS.length; i++) {
+				frequency = Math.min(frequency, counters[indexOf(hash, i)]);
+			}
+			return frequency;
+		}
+
+		private int indexOf(int hash, int row){
+			int h = (hash ^ SEEDS[row]) * SEEDS[row];
+			h ^= h >>> 17;
+			return row * (mask + 1) + (h & mask);
+		}
+	}
+}
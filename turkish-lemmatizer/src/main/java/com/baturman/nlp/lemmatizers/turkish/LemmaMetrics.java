@@ -0,0 +1,325 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters of lemmatization. Set it with {@link TurkishLemmatizer#setMetrics(LemmaMetrics)} to count words, successful
+ * words, the control that has produced each lemma, time spent in controls and number of stems scanned in each bucket,
+ * where a bucket holds the stems that start with the same two letters. Only words that controls are applied to are
+ * counted: results taken from a {@link LemmaCache} are counted by the cache.
+ * <br/>
+ * Counters are {@link LongAdder}s and histograms are updated without locking, so threads do not wait for each other.
+ * Read them with {@link #snapshot()}, or through JMX after {@link #register(String)}.
+ *
+ * @author Baturman SEN
+ *
+ */
+public class LemmaMetrics implements LemmaMetricsMXBean {
+
+	/**
+	 * Domain of object names of registered metrics.
+	 */
+	public static final String JMX_DOMAIN = "com.baturman.nlp.lemmatizers.turkish";
+
+	private static final Control [] CONTROLS = Control.values();
+
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder successes = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder [] wins = new LongAdder[CONTROLS.length];
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LatencyHistogram bucketSizes = new LatencyHistogram();
+	private ObjectName objectName;
+
+	/**
+	 * Creates empty metrics.
+	 */
+	public LemmaMetrics() {
+		for (int i = 0; i < wins.length; i++) {
+			wins[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Counts a word.
+	 *
+	 * @param nanos time spent in controls.
+	 * @param successful <code>true</code> if a stem has been found.
+	 * @param rejected <code>true</code> if word cannot be lemmatized.
+	 * @param winner control that has produced lemma, or <code>null</code>.
+	 */
+	void record(long nanos, boolean successful, boolean rejected, Control winner){
+		calls.increment();
+		if (successful){
+			successes.increment();
+		}
+		if (rejected){
+			this.rejected.increment();
+		}
+		if (winner != null){
+			wins[winner.ordinal()].increment();
+		}
+		latency.record(nanos);
+	}
+
+	/**
+	 * Counts number of stems scanned in a bucket.
+	 */
+	void recordBucket(int size){
+		bucketSizes.record(size);
+	}
+
+	/**
+	 * @return current values of counters.
+	 */
+	public Snapshot snapshot(){
+		long [] winCounts = new long[wins.length];
+		for (int i = 0; i < wins.length; i++) {
+			winCounts[i] = wins[i].sum();
+		}
+		return new Snapshot(calls.sum(), successes.sum(), rejected.sum(), winCounts,
+				latency.percentile(50), latency.percentile(99), bucketSizes.count(), bucketSizes.percentile(50), bucketSizes.percentile(99));
+	}
+
+	/**
+	 * Registers metrics to platform MBean server with object name
+	 * <code>com.baturman.nlp.lemmatizers.turkish:type=LemmaMetrics,name=&lt;name&gt;</code>.
+	 *
+	 * @param name name of metrics, to tell lemmatizers apart.
+	 * @throws JMException if metrics cannot be registered, for example if name is in use.
+	 */
+	public synchronized void register(String name) throws JMException{
+		if (objectName != null){
+			throw new IllegalStateException("Metrics are already registered as " + objectName);
+		}
+		ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=LemmaMetrics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Removes metrics from platform MBean server. Does nothing if metrics are not registered.
+	 *
+	 * @throws JMException if metrics cannot be unregistered.
+	 */
+	public synchronized void unregister() throws JMException{
+		if (objectName != null){
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.unregisterMBean(objectName);
+			objectName = null;
+		}
+	}
+
+	/**
+	 * @return object name that metrics are registered with, or <code>null</code>.
+	 */
+	public synchronized ObjectName getObjectName(){
+		return objectName;
+	}
+
+	@Override
+	public long getCallCount() {
+		return calls.sum();
+	}
+
+	@Override
+	public long getSuccessCount() {
+		return successes.sum();
+	}
+
+	@Override
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	@Override
+	public double getSuccessRate() {
+		return snapshot().getSuccessRate();
+	}
+
+	@Override
+	public Map<String, Long> getControlWins() {
+		return snapshot().getControlWins();
+	}
+
+	@Override
+	public long getLatencyP50Nanos() {
+		return latency.percentile(50);
+	}
+
+	@Override
+	public long getLatencyP99Nanos() {
+		return latency.percentile(99);
+	}
+
+	@Override
+	public long getBucketSizeP50() {
+		return bucketSizes.percentile(50);
+	}
+
+	@Override
+	public long getBucketSizeP99() {
+		return bucketSizes.percentile(99);
+	}
+
+	@Override
+	public void reset() {
+		calls.reset();
+		successes.reset();
+		rejected.reset();
+		for (LongAdder win : wins) {
+			win.reset();
+		}
+		latency.reset();
+		bucketSizes.reset();
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+
+	/**
+	 * Values of {@link LemmaMetrics} at a moment. Counters are read one by one while other threads may record, so
+	 * they can be off by the words that are being lemmatized.
+	 */
+	public static final class Snapshot{
+		private final long calls;
+		private final long successes;
+		private final long rejected;
+		private final long [] wins;
+		private final long latencyP50;
+		private final long latencyP99;
+		private final long bucketCount;
+		private final long bucketSizeP50;
+		private final long bucketSizeP99;
+
+		private Snapshot(long calls, long successes, long rejected, long [] wins, long latencyP50, long latencyP99,
+				long bucketCount, long bucketSizeP50, long bucketSizeP99) {
+			this.calls = calls;
+			this.successes = successes;
+			this.rejected = rejected;
+			this.wins = wins;
+			this.latencyP50 = latencyP50;
+			this.latencyP99 = latencyP99;
+			this.bucketCount = bucketCount;
+			this.bucketSizeP50 = bucketSizeP50;
+			this.bucketSizeP99 = bucketSizeP99;
+		}
+
+		/**
+		 * @return number of words that controls have been applied to.
+		 */
+		public long getCallCount() {
+			return calls;
+		}
+
+		/**
+		 * @return number of words that a stem has been found for.
+		 */
+		public long getSuccessCount() {
+			return successes;
+		}
+
+		/**
+		 * @return number of words that could not be lemmatized.
+		 */
+		public long getRejectedCount() {
+			return rejected;
+		}
+
+		/**
+		 * @return ratio of successful words to all words, or <code>0</code> if no word has been lemmatized.
+		 */
+		public double getSuccessRate() {
+			return calls == 0 ? 0 : (double) successes / calls;
+		}
+
+		/**
+		 * @param control control
+		 * @return number of words whose lemma has been produced by given control. If more than one control has found
+		 * the lemma, it is counted for the first control applied.
+		 */
+		public long getWins(Control control) {
+			return wins[control.ordinal()];
+		}
+
+		/**
+		 * @return number of words won by each control, keyed by name of control.
+		 */
+		public Map<String, Long> getControlWins() {
+			Map<String, Long> map = new LinkedHashMap<String, Long>();
+			for (Control control : CONTROLS) {
+				map.put(control.name(), wins[control.ordinal()]);
+			}
+			return map;
+		}
+
+		/**
+		 * @return median time spent in controls for a word, in nanoseconds.
+		 */
+		public long getLatencyP50Nanos() {
+			return latencyP50;
+		}
+
+		/**
+		 * @return 99th percentile of time spent in controls for a word, in nanoseconds.
+		 */
+		public long getLatencyP99Nanos() {
+			return latencyP99;
+		}
+
+		/**
+		 * @return number of scanned buckets.
+		 */
+		public long getBucketCount() {
+			return bucketCount;
+		}
+
+		/**
+		 * @return median number of stems scanned in a bucket.
+		 */
+		public long getBucketSizeP50() {
+			return bucketSizeP50;
+		}
+
+		/**
+		 * @return 99th percentile of number of stems scanned in a bucket.
+		 */
+		public long getBucketSizeP99() {
+			return bucketSizeP99;
+		}
+
+		@Override
+		public String toString() {
+			return "LemmaMetrics[calls=" + calls + ", successes=" + successes + ", rejected=" + rejected
+					+ ", wins=" + getControlWins() + ", latencyP50=" + latencyP50 + "ns, latencyP99=" + latencyP99
+					+ "ns, buckets=" + bucketCount + ", bucketSizeP50=" + bucketSizeP50 + ", bucketSizeP99=" + bucketSizeP99 + "]";
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link LemmaMetrics}, see {@link LemmaMetrics#register(String)}.
+ *
+ * @author Baturman SEN
+ *
+ */
+public interface LemmaMetricsMXBean {
+
+	/**
+	 * @return number of words that controls have been applied to.
+	 */
+	long getCallCount();
+
+	/**
+	 * @return number of words that a stem has been found for.
+	 */
+	long getSuccessCount();
+
+	/**
+	 * @return number of words that could not be lemmatized, because they are too short or have characters outside
+	 * {@link TurkishAlphabet}.
+	 */
+	long getRejectedCount();
+
+	/**
+	 * @return ratio of successful words to all words, or <code>0</code> if no word has been lemmatized.
+	 */
+	double getSuccessRate();
+
+	/**
+	 * @return number of words won by each control, keyed by name of control.
+	 */
+	Map<String, Long> getControlWins();
+
+	/**
+	 * @return median time spent in controls for a word, in nanoseconds.
+	 */
+	long getLatencyP50Nanos();
+
+	/**
+	 * @return 99th percentile of time spent in controls for a word, in nanoseconds.
+	 */
+	long getLatencyP99Nanos();
+
+	/**
+	 * @return median number of stems scanned in a bucket.
+	 */
+	long getBucketSizeP50();
+
+	/**
+	 * @return 99th percentile of number of stems scanned in a bucket.
+	 */
+	long getBucketSizeP99();
+
+	/**
+	 * Clears all counters.
+	 */
+	void reset();
+}
@@ -0,0 +1,229 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Immutable result of a lemmatization. It holds the lemma of a word together with all candidate stems and
+ * the controls that have been applied to find them. Instances can be freely shared between threads.
+ *
+ * @author Baturman SEN
+ *
+ */
+public final class LemmaResult {
+
+	/**
+	 * Outcome of lemmatization.
+	 */
+	public enum Status{
+		/**
+		 * A stem has been found, see {@link LemmaResult#isSuccessful()}.
+		 */
+		STEM_FOUND,
+
+		/**
+		 * Word is valid, but no stem has been found. Lemma is word itself.
+		 */
+		NO_STEM,
+
+		/**
+		 * Word is a proper noun followed by a suffix after an apostrophe, like <i>İstanbul'da</i>. Lemma is the
+		 * part before apostrophe.
+		 */
+		PROPER_NOUN,
+
+		/**
+		 * Word has less than two characters. Lemma is word itself.
+		 */
+		TOO_SHORT,
+
+		/**
+		 * Word has a character that is not in {@link TurkishAlphabet}. Lemma is word itself.
+		 */
+		NOT_ACCEPTABLE
+	}
+
+	/**
+	 * Order that controls are applied in. A word is checked either by {@link Control#UNLU_DEGISIMI} alone, or by all other controls.
+	 */
+	private static final Control [] ORDER = { Control.UNLU_DEGISIMI, Control.UNSUZ_YUMUSAMA_KONTROLU, Control.UNLU_DARALMASI_KONTROLU,
+			Control.UNLU_DUSMESI_KONTROLU, Control.UNSUZ_DUSMESI_KONTROLU, Control.PEKISTIRME_KONTROLU, Control.EN_UZUN_KOK_KONTROLU};
+
+	/**
+	 * Results of controls are kept in the upper half of trace mask.
+	 */
+	private static final int RESULT_SHIFT = 16;
+
+	private final String word;
+	private final String lemma;
+	private final String [] candidates;
+	private final int trace;
+	private final boolean successful;
+	private final Status status;
+
+	/**
+	 * Creates result object with given values.
+	 *
+	 * @param word Lemmatized word
+	 * @param lemma Lemma of word
+	 * @param candidates Stems found in controls. Duplicate stems are kept once.
+	 * @param trace Applied controls and their results, see {@link #trace(int, Control, boolean)}.
+	 * @param successful Result of lemmatization process.
+	 */
+	LemmaResult(String word, String lemma, List<String> candidates, int trace, boolean successful) {
+		this.word = word;
+		this.lemma = lemma;
+		this.candidates = new HashSet<String>(candidates).toArray(new String[0]);
+		this.trace = trace;
+		this.successful = successful;
+		this.status = successful ? Status.STEM_FOUND : Status.NO_STEM;
+	}
+
+	/**
+	 * Creates result of a word that has not been checked by controls.
+	 *
+	 * @param word Word
+	 * @param lemma Lemma of word
+	 * @param status Status of result
+	 */
+	LemmaResult(String word, String lemma, Status status) {
+		this.word = word;
+		this.lemma = lemma;
+		this.candidates = new String[0];
+		this.trace = 0;
+		this.successful = false;
+		this.status = status;
+	}
+
+	/**
+	 * Records result of a control in a trace mask. Each control is applied at most once for a word.
+	 *
+	 * @param trace Trace mask of controls that have been applied so far. <code>0</code> if no control has been applied.
+	 * @param control Applied control
+	 * @param result Result of control
+	 * @return trace mask that includes given control.
+	 */
+	static int trace(int trace, Control control, boolean result){
+		trace |= control.bit();
+		if (result){
+			trace |= control.bit() << RESULT_SHIFT;
+		}
+		return trace;
+	}
+
+	/**
+	 * @return lemmatized word.
+	 */
+	public String getWord() {
+		return word;
+	}
+
+	/**
+	 * @return lemma of word. If no stem could be found, word itself.
+	 */
+	public String getLemma() {
+		return lemma;
+	}
+
+	/**
+	 * @return list of all stems found in given controls.
+	 */
+	public String [] getCandidates() {
+		return candidates.clone();
+	}
+
+	/**
+	 * @return <code>true</code> if lemmatization process is successful.
+	 */
+	public boolean isSuccessful() {
+		return successful;
+	}
+
+	/**
+	 * @return outcome of lemmatization.
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return applied controls in the order they have been applied. Empty if trace has not been recorded.
+	 */
+	public Control [] getControls() {
+		Control [] controls = new Control[Integer.bitCount(trace & 0xFFFF)];
+		int n = 0;
+		for (Control control : ORDER) {
+			if ((trace & control.bit()) != 0){
+				controls[n++] = control;
+			}
+		}
+		return controls;
+	}
+
+	/**
+	 * @param control Control
+	 * @return <code>true</code> if given control has been applied and it has found a stem.
+	 */
+	public boolean getResult(Control control) {
+		return (trace & (control.bit() << RESULT_SHIFT)) != 0;
+	}
+
+	/**
+	 * @return names of applied controls in the order they have been applied.
+	 */
+	public String [] getAppliedControls() {
+		Control [] controls = getControls();
+		String [] names = new String[controls.length];
+		for (int i = 0; i < controls.length; i++) {
+			names[i] = controls[i].name();
+		}
+		return names;
+	}
+
+	/**
+	 * @return results of applied controls in the order they have been applied.
+	 */
+	public boolean [] getControlResults() {
+		Control [] controls = getControls();
+		boolean [] results = new boolean[controls.length];
+		for (int i = 0; i < controls.length; i++) {
+			results[i] = getResult(controls[i]);
+		}
+		return results;
+	}
+
+	/**
+	 * @return trace string. Last applied control comes first.
+	 */
+	public String getTrace() {
+		Control [] controls = getControls();
+		StringBuilder message = new StringBuilder("Trace: ");
+		for (int i = controls.length - 1; i >= 0; i--) {
+			message.append('[').append(controls[i].name()).append('=').append(getResult(controls[i])).append("] <- ");
+		}
+		return message.toString();
+	}
+
+	@Override
+	public String toString() {
+		return word + " = " + lemma;
+	}
+}
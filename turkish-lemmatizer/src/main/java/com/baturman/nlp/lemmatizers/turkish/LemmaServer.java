@@ -0,0 +1,627 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP server that lemmatizes tokens with one shared {@link TurkishLemmatizer}. Server only listens on loopback
+ * address.
+ * <ul>
+ * <li><code>POST /lemmatize</code> with one token per line answers one <code>token\tlemma</code> line per token.</li>
+ * <li><code>POST /lemmatize</code> with a JSON array of tokens (<code>Content-Type: application/json</code>) answers a
+ * JSON array of lemmas.</li>
+ * <li><code>GET /stats</code> answers request, token and batch counts with 50th and 99th percentile of request latency.</li>
+ * </ul>
+ * Default {@link LetterConverter} rules are applied to tokens and their case is folded with Turkish rules. A token
+ * that cannot be lemmatized, because it is shorter than two letters or has characters outside {@link TurkishAlphabet},
+ * is its own lemma.
+ * <br/>
+ * Requests are read by a bounded pool of handler threads. If all handlers are busy and their queue is full, the
+ * request is refused with <code>503 Service Unavailable</code> without being read, so the accepting thread never
+ * waits for a lemmatization and the server sheds load instead of stalling. Refused requests are counted. Tokens of small requests
+ * are queued, and each worker thread lemmatizes tokens of the requests that have arrived together as one batch.
+ * Requests that have at least as many tokens as a batch are lemmatized on their handler thread.
+ *
+ * @author Baturman SEN
+ *
+ */
+public class LemmaServer {
+
+	/**
+	 * Default maximum number of tokens in a batch.
+	 */
+	public static final int DEFAULT_MAX_BATCH = 256;
+
+	/**
+	 * Default time that a worker waits for more requests to fill a batch.
+	 */
+	public static final long DEFAULT_MAX_DELAY_MICROS = 200;
+
+	private static final int HANDLER_QUEUE_SIZE = 1024;
+	private static final long WAIT_MILLIS = 100;
+
+	private final TurkishLemmatizer lemmatizer;
+	private final int maxBatch;
+	private final long maxDelayNanos;
+	private final HttpServer server;
+	private final ThreadPoolExecutor handlers;
+	private final Thread [] workers;
+	private final LinkedBlockingQueue<Request> queue = new LinkedBlockingQueue<Request>();
+	private volatile boolean running = false;
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder tokens = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	/**
+	 * Set on the accepting thread while it answers a request that no handler thread could take.
+	 */
+	private final ThreadLocal<Boolean> rejecting = new ThreadLocal<Boolean>();
+
+	/**
+	 * Creates server with default batch size and delay.
+	 *
+	 * @param lemmatizer {@link TurkishLemmatizer} shared by all requests. It should be frozen.
+	 * @param port port on loopback address. Pass <code>0</code> to use a free port.
+	 * @param threads number of worker threads.
+	 * @throws IOException if port cannot be bound.
+	 */
+	public LemmaServer(TurkishLemmatizer lemmatizer, int port, int threads) throws IOException {
+		this(lemmatizer, port, threads, DEFAULT_MAX_BATCH, DEFAULT_MAX_DELAY_MICROS);
+	}
+
+	/**
+	 * Creates server with given parameters. Server is started by {@link #start()}.
+	 *
+	 * @param lemmatizer {@link TurkishLemmatizer} shared by all requests. It should be frozen.
+	 * @param port port on loopback address. Pass <code>0</code> to use a free port.
+	 * @param threads number of worker threads. Four handler threads are started for each worker.
+	 * @param maxBatch maximum number of tokens in a batch.
+	 * @param maxDelayMicros time that a worker waits for more requests to fill a batch.
+	 * @throws IOException if port cannot be bound.
+	 */
+	public LemmaServer(TurkishLemmatizer lemmatizer, int port, int threads, int maxBatch, long maxDelayMicros) throws IOException {
+		this(lemmatizer, port, threads, maxBatch, maxDelayMicros, HANDLER_QUEUE_SIZE);
+	}
+
+	/**
+	 * Creates server with given parameters and handler queue size.
+	 *
+	 * @param lemmatizer {@link TurkishLemmatizer} shared by all requests. It should be frozen.
+	 * @param port port on loopback address. Pass <code>0</code> to use a free port.
+	 * @param threads number of worker threads. Four handler threads are started for each worker.
+	 * @param maxBatch maximum number of tokens in a batch.
+	 * @param maxDelayMicros time that a worker waits for more requests to fill a batch.
+	 * @param handlerQueueSize number of requests that wait for a handler thread before requests are refused.
+	 * @throws IOException if port cannot be bound.
+	 */
+	LemmaServer(TurkishLemmatizer lemmatizer, int port, int threads, int maxBatch, long maxDelayMicros, int handlerQueueSize) throws IOException {
+		if (threads < 1 || maxBatch < 1 || maxDelayMicros < 0){
+			throw new IllegalArgumentException("Threads and batch size must be positive, delay must not be negative.");
+		}
+		this.lemmatizer = lemmatizer;
+		this.maxBatch = maxBatch;
+		this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.handlers = new ThreadPoolExecutor(threads * 4, threads * 4, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(handlerQueueSize), new RejectPolicy());
+		server.setExecutor(handlers);
+		server.createContext("/lemmatize", new LemmatizeHandler());
+		server.createContext("/stats", new StatsHandler());
+
+		this.workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread(new Worker(), "lemma-worker-" + i);
+			workers[i].setDaemon(true);
+		}
+	}
+
+	/**
+	 * Starts accepting requests.
+	 */
+	public void start(){
+		running = true;
+		for (Thread worker : workers) {
+			worker.start();
+		}
+		server.start();
+	}
+
+	/**
+	 * Stops server. Requests in progress are given at most one second to finish, and handler threads are given one
+	 * more second to exit.
+	 */
+	public void stop(){
+		server.stop(1);
+		running = false;
+		for (Thread worker : workers) {
+			worker.interrupt();
+		}
+		handlers.shutdown();
+		try {
+			handlers.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if server has been stopped and all of its threads have exited.
+	 */
+	boolean isTerminated(){
+		for (Thread worker : workers) {
+			if (worker.isAlive()){
+				return false;
+			}
+		}
+		return handlers.isTerminated();
+	}
+
+	/**
+	 * @return port that server listens on.
+	 */
+	public int getPort(){
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * @return number of answered lemmatization requests.
+	 */
+	public long getRequestCount(){
+		return requests.sum();
+	}
+
+	/**
+	 * @return number of lemmatized tokens.
+	 */
+	public long getTokenCount(){
+		return tokens.sum();
+	}
+
+	/**
+	 * @return number of batches run by workers.
+	 */
+	public long getBatchCount(){
+		return batches.sum();
+	}
+
+	/**
+	 * @return number of lemmatization requests refused because all handler threads were busy.
+	 */
+	public long getRejectedCount(){
+		return rejected.sum();
+	}
+
+	/**
+	 * @param percentile percentile between <code>0</code> and <code>100</code>.
+	 * @return request latency at given percentile in microseconds.
+	 */
+	public long getLatencyMicros(double percentile){
+		return TimeUnit.NANOSECONDS.toMicros(latency.percentile(percentile));
+	}
+
+	/**
+	 * @return statistics line, as answered to <code>GET /stats</code>.
+	 */
+	public String getStatistics(){
+		return "requests=" + getRequestCount() + " tokens=" + getTokenCount() + " batches=" + getBatchCount()
+				+ " rejected=" + getRejectedCount() + " p50=" + getLatencyMicros(50) + "us p99=" + getLatencyMicros(99)
+				+ "us";
+	}
+
+	/**
+	 * Lemmatizes tokens of one or more requests.
+	 *
+	 * @param tokens tokens
+	 * @return lemmas of tokens, in the order of tokens.
+	 */
+	String [] lemmatize(String [] tokens){
+		return TextLemmatizer.lemmatizeTokens(lemmatizer, Arrays.asList(tokens));
+	}
+
+	/**
+	 * Lemmatizes tokens of a request, in a batch with other requests if it is small.
+	 */
+	private String [] lemmatizeRequest(String [] tokens) throws InterruptedException{
+		if (tokens.length >= maxBatch || !running){
+			return lemmatize(tokens);
+		}
+		Request request = new Request(tokens);
+		queue.add(request);
+		while (!request.done.await(WAIT_MILLIS, TimeUnit.MILLISECONDS)){
+			// Workers may have stopped before request was queued. A request that is still in queue is not taken by a worker
+			if (!running && queue.remove(request)){
+				return lemmatize(tokens);
+			}
+		}
+		if (request.failure != null){
+			throw request.failure;
+		}
+		return request.lemmas;
+	}
+
+	/**
+	 * Tokens of a request that waits for a worker.
+	 */
+	private static final class Request{
+		private final String [] tokens;
+		private final CountDownLatch done = new CountDownLatch(1);
+		private volatile String [] lemmas;
+		private volatile RuntimeException failure;
+
+		private Request(String [] tokens) {
+			this.tokens = tokens;
+		}
+	}
+
+	/**
+	 * Takes requests from queue and lemmatizes them in batches.
+	 */
+	private final class Worker implements Runnable{
+		@Override
+		public void run() {
+			List<Request> batch = new ArrayList<Request>();
+			while (running){
+				batch.clear();
+				int size = 0;
+				try {
+					Request first = queue.take();
+					batch.add(first);
+					size = first.tokens.length;
+					long deadline = System.nanoTime() + maxDelayNanos;
+					while (size < maxBatch){
+						Request next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+						if (next == null){
+							break;
+						}
+						batch.add(next);
+						size += next.tokens.length;
+					}
+				} catch (InterruptedException e) {
+					// Server is stopped, answer requests that have been taken
+				}
+				if (!batch.isEmpty()){
+					run(batch, size);
+				}
+			}
+			// Answer requests left in queue
+			Request request;
+			while ((request = queue.poll()) != null){
+				batch.clear();
+				batch.add(request);
+				run(batch, request.tokens.length);
+			}
+		}
+
+		private void run(List<Request> batch, int size){
+			String [] all = new String[size];
+			int n = 0;
+			for (Request request : batch) {
+				System.arraycopy(request.tokens, 0, all, n, request.tokens.length);
+				n += request.tokens.length;
+			}
+			batches.increment();
+			try {
+				String [] lemmas = lemmatize(all);
+				n = 0;
+				for (Request request : batch) {
+					String [] own = new String[request.tokens.length];
+					System.arraycopy(lemmas, n, own, 0, own.length);
+					n += own.length;
+					request.lemmas = own;
+				}
+			} catch (RuntimeException e) {
+				for (Request request : batch) {
+					request.failure = e;
+				}
+			}
+			for (Request request : batch) {
+				request.done.countDown();
+			}
+		}
+	}
+
+	/**
+	 * Runs a request that no handler thread can take on the accepting thread, marked to be refused. Exchange of the
+	 * request is not visible to executor, so it is closed by the handler.
+	 */
+	private final class RejectPolicy implements RejectedExecutionHandler{
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			rejecting.set(Boolean.TRUE);
+			try {
+				task.run();
+			} finally {
+				rejecting.remove();
+			}
+		}
+	}
+
+	/**
+	 * Handles <code>/lemmatize</code>.
+	 */
+	private final class LemmatizeHandler implements HttpHandler{
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			long start = System.nanoTime();
+			try {
+				if (rejecting.get() != null){
+					rejected.increment();
+					send(exchange, 503, "text/plain", "Server is busy.\n");
+					return;
+				}
+				if (!"POST".equals(exchange.getRequestMethod())){
+					send(exchange, 405, "text/plain", "Use POST.\n");
+					return;
+				}
+				String body = new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+				String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+				boolean json = contentType != null && contentType.contains("json");
+
+				String [] input;
+				try {
+					input = json ? Json.parseStringArray(body) : splitLines(body);
+				} catch (IllegalArgumentException e) {
+					send(exchange, 400, "text/plain", e.getMessage() + "\n");
+					return;
+				}
+
+				String [] lemmas = lemmatizeRequest(input);
+				StringBuilder sb = new StringBuilder(body.length() * 2 + 2);
+				if (json){
+					Json.writeStringArray(lemmas, sb);
+				}else{
+					for (int i = 0; i < input.length; i++) {
+						sb.append(input[i]).append('\t').append(lemmas[i]).append('\n');
+					}
+				}
+				send(exchange, 200, json ? "application/json; charset=UTF-8" : "text/plain; charset=UTF-8", sb.toString());
+				requests.increment();
+				tokens.add(input.length);
+				latency.record(System.nanoTime() - start);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				send(exchange, 503, "text/plain", "Server is stopping.\n");
+			} finally {
+				exchange.close();
+			}
+		}
+	}
+
+	/**
+	 * Handles <code>/stats</code>.
+	 */
+	private final class StatsHandler implements HttpHandler{
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try {
+				send(exchange, 200, "text/plain", getStatistics() + "\n");
+			} finally {
+				exchange.close();
+			}
+		}
+	}
+
+	private static String [] splitLines(String body){
+		List<String> lines = new ArrayList<String>();
+		int start = 0;
+		while (start < body.length()){
+			int end = body.indexOf('\n', start);
+			if (end == -1){
+				end = body.length();
+			}
+			String line = body.substring(start, end).trim();
+			if (!line.isEmpty()){
+				lines.add(line);
+			}
+			start = end + 1;
+		}
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	private static byte [] readAll(InputStream in) throws IOException{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte [] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1){
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException{
+		byte [] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(bytes);
+		out.close();
+	}
+
+	/**
+	 * Reads and writes JSON arrays of strings.
+	 */
+	static final class Json{
+
+		private Json() {
+		}
+
+		/**
+		 * @param text JSON array of strings.
+		 * @return strings of array.
+		 * @throws IllegalArgumentException if text is not a JSON array of strings.
+		 */
+		static String [] parseStringArray(String text){
+			List<String> values = new ArrayList<String>();
+			int i = skipSpace(text, 0);
+			i = expect(text, i, '[');
+			i = skipSpace(text, i);
+			if (i < text.length() && text.charAt(i) == ']'){
+				i++;
+			}else{
+				while (true){
+					StringBuilder value = new StringBuilder();
+					i = readString(text, skipSpace(text, i), value);
+					values.add(value.toString());
+					i = skipSpace(text, i);
+					if (i < text.length() && text.charAt(i) == ','){
+						i++;
+						continue;
+					}
+					i = expect(text, i, ']');
+					break;
+				}
+			}
+			if (skipSpace(text, i) != text.length()){
+				throw new IllegalArgumentException("Unexpected text after JSON array at " + i + ".");
+			}
+			return values.toArray(new String[values.size()]);
+		}
+
+		/**
+		 * Writes strings as a JSON array.
+		 */
+		static void writeStringArray(String [] values, StringBuilder out){
+			out.append('[');
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0){
+					out.append(',');
+				}
+				out.append('"');
+				String value = values[i];
+				for (int j = 0; j < value.length(); j++) {
+					char c = value.charAt(j);
+					switch (c) {
+					case '"':
+						out.append("\\\"");
+						break;
+					case '\\':
+						out.append("\\\\");
+						break;
+					case '\n':
+						out.append("\\n");
+						break;
+					case '\r':
+						out.append("\\r");
+						break;
+					case '\t':
+						out.append("\\t");
+						break;
+					default:
+						if (c < 0x20){
+							out.append(String.format("\\u%04x", (int) c));
+						}else{
+							out.append(c);
+						}
+						break;
+					}
+				}
+				out.append('"');
+			}
+			out.append(']');
+		}
+
+		private static int readString(String text, int i, StringBuilder value){
+			i = expect(text, i, '"');
+			while (i < text.length()){
+				char c = text.charAt(i++);
+				if (c == '"'){
+					return i;
+				}
+				if (c != '\\'){
+					value.append(c);
+					continue;
+				}
+				if (i >= text.length()){
+					break;
+				}
+				char e = text.charAt(i++);
+				switch (e) {
+				case 'b':
+					value.append('\b');
+					break;
+				case 'f':
+					value.append('\f');
+					break;
+				case 'n':
+					value.append('\n');
+					break;
+				case 'r':
+					value.append('\r');
+					break;
+				case 't':
+					value.append('\t');
+					break;
+				case 'u':
+					if (i + 4 > text.length()){
+						throw new IllegalArgumentException("Bad unicode escape at " + i + ".");
+					}
+					try {
+						value.append((char) Integer.parseInt(text.substring(i, i + 4), 16));
+					} catch (NumberFormatException ex) {
+						throw new IllegalArgumentException("Bad unicode escape at " + i + ".");
+					}
+					i += 4;
+					break;
+				default:
+					value.append(e);
+					break;
+				}
+			}
+			throw new IllegalArgumentException("Unterminated JSON string.");
+		}
+
+		private static int expect(String text, int i, char c){
+			if (i >= text.length() || text.charAt(i) != c){
+				throw new IllegalArgumentException("Expected '" + c + "' in JSON at " + i + ".");
+			}
+			return i + 1;
+		}
+
+		private static int skipSpace(String text, int i){
+			while (i < text.length() && Character.isWhitespace(text.charAt(i))){
+				i++;
+			}
+			return i;
+		}
+	}
+}
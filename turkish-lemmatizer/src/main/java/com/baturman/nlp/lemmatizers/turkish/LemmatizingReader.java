@@ -0,0 +1,204 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader that replaces each token of another reader by its lemma. Text is read as it arrives and a token is
+ * lemmatized as soon as the character after it is read, so it can filter streams that never end, like logs or
+ * sockets. Only the token being read and the output of one read of underlying reader are kept in memory.
+ * <br/>
+ * Tokens are found, normalized and validated as {@link TextLemmatizer} does: a token is a run of letters and digits,
+ * {@link LetterConverter} rules are applied and case is folded with Turkish rules. A token that cannot be lemmatized,
+ * or that is longer than the maximum token length, is copied as it is. Characters between tokens are copied as they
+ * are. Words are lemmatized by {@link TurkishLemmatizer#lemmatize(char[], int, int, StringBuilder)}.
+ * <br/>
+ * Like other readers, a lemmatizing reader is not meant to be read by several threads at the same time.
+ *
+ * @author Baturman SEN
+ *
+ */
+public class LemmatizingReader extends Reader {
+
+	/**
+	 * Default maximum number of characters in a token that is lemmatized.
+	 */
+	public static final int DEFAULT_MAX_TOKEN_LENGTH = 64;
+
+	private static final int READ_SIZE = 4096;
+
+	private final Reader in;
+	private final TurkishLemmatizer lemmatizer;
+	private final LetterConverter converter;
+
+	private final char [] input = new char[READ_SIZE];
+	/**
+	 * Characters of the token being read as they are in text.
+	 */
+	private final char [] raw;
+	/**
+	 * Characters of the token being read after normalization.
+	 */
+	private final char [] word;
+	private int length = 0;
+	private boolean acceptable = true;
+	/**
+	 * <code>true</code> while the rest of a token that is too long is copied.
+	 */
+	private boolean overflow = false;
+
+	private final StringBuilder output = new StringBuilder();
+	private int outputStart = 0;
+	private boolean eof = false;
+
+	/**
+	 * Creates reader that normalizes tokens with default {@link LetterConverter} rules, so "hâlâ" is lemmatized as
+	 * "hala", and lemmatizes tokens of default maximum length.
+	 *
+	 * @param in reader of text.
+	 * @param lemmatizer {@link TurkishLemmatizer} that words are lemmatized with.
+	 */
+	public LemmatizingReader(Reader in, TurkishLemmatizer lemmatizer) {
+		this(in, lemmatizer, new LetterConverter(true), DEFAULT_MAX_TOKEN_LENGTH);
+	}
+
+	/**
+	 * Creates reader with given parameters.
+	 *
+	 * @param in reader of text.
+	 * @param lemmatizer {@link TurkishLemmatizer} that words are lemmatized with.
+	 * @param converter {@link LetterConverter} applied to each character of tokens, or <code>null</code>.
+	 * @param maxTokenLength maximum number of characters in a token that is lemmatized.
+	 */
+	public LemmatizingReader(Reader in, TurkishLemmatizer lemmatizer, LetterConverter converter, int maxTokenLength) {
+		super(in);
+		if (maxTokenLength < 2){
+			throw new IllegalArgumentException("Maximum token length must be at least 2: " + maxTokenLength);
+		}
+		this.in = in;
+		this.lemmatizer = lemmatizer;
+		this.converter = converter;
+		this.raw = new char[maxTokenLength];
+		this.word = new char[maxTokenLength];
+	}
+
+	/**
+	 * Reads lemmatized text. Blocks until a token or a separator is complete, or underlying reader ends.
+	 */
+	@Override
+	public int read(char [] cbuf, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || off + len > cbuf.length){
+			throw new IndexOutOfBoundsException("offset " + off + ", length " + len + ", buffer length " + cbuf.length);
+		}
+		synchronized (lock) {
+			if (len == 0){
+				return 0;
+			}
+			while (outputStart == output.length()){
+				if (eof){
+					return -1;
+				}
+				output.setLength(0);
+				outputStart = 0;
+				int read = in.read(input, 0, input.length);
+				if (read == -1){
+					eof = true;
+					endToken();
+					continue;
+				}
+				for (int i = 0; i < read; i++) {
+					put(input[i]);
+				}
+			}
+
+			int count = Math.min(len, output.length() - outputStart);
+			output.getChars(outputStart, outputStart + count, cbuf, off);
+			outputStart += count;
+			return count;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if lemmatized text can be read without blocking.
+	 */
+	@Override
+	public boolean ready() throws IOException {
+		synchronized (lock) {
+			return outputStart < output.length();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (lock) {
+			in.close();
+			output.setLength(0);
+			outputStart = 0;
+			eof = true;
+		}
+	}
+
+	/**
+	 * Adds a character of text. Output of tokens that are complete is appended to output.
+	 */
+	private void put(char c){
+		if (Character.isLetterOrDigit(c)){
+			if (overflow){
+				output.append(c);
+			}else if (length == raw.length){
+				// Token is too long to be a word, copy it as it is
+				output.append(raw, 0, length).append(c);
+				length = 0;
+				acceptable = true;
+				overflow = true;
+			}else{
+				char folded = TextLemmatizer.fold(converter == null ? c : converter.convertCharacter(c));
+				acceptable &= TurkishAlphabet.getPosition(folded) != -1;
+				raw[length] = c;
+				word[length] = folded;
+				length++;
+			}
+			return;
+		}
+		endToken();
+		output.append(c);
+	}
+
+	/**
+	 * Appends lemma of the token being read, or its text if it cannot be lemmatized.
+	 */
+	private void endToken(){
+		if (overflow){
+			overflow = false;
+			return;
+		}
+		if (length == 0){
+			return;
+		}
+		if (acceptable && length >= 2){
+			lemmatizer.lemmatize(word, 0, length, output);
+		}else{
+			output.append(raw, 0, length);
+		}
+		length = 0;
+		acceptable = true;
+	}
+}
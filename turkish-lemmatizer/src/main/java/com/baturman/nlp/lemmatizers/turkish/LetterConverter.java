@@ -20,18 +20,23 @@
 
 package com.baturman.nlp.lemmatizers.turkish;
 
-import java.util.Vector;
+import java.util.Arrays;
 
 /**
  * {@link LetterConverter} is used to replace non-latin characters found in Turkish words.
- * {@link Rule} class is used to create rules for replacement task.
+ * {@link Rule} class is used to create rules for replacement task. Rules are compiled into a lookup table indexed by character
+ * code when they are added, so a character is converted in constant time whatever the number of rules is.
  * 
  * @author Baturman SEN
  *
  */
 public class LetterConverter {
 	
-	private Vector<LetterConverter.Rule> rules = new Vector<LetterConverter.Rule>();
+	/**
+	 * Replacement of each character code. Characters beyond the end of table are not converted. Table is replaced, not
+	 * modified, when a rule is added.
+	 */
+	private volatile char [] table = new char[0];
 
 	/**
 	 * Creates {@link LetterConverter} object.
@@ -51,38 +56,88 @@ public class LetterConverter {
 	 * @return Turkish latin replacement of given character. If replacement fails, returns same character.
 	 */
 	public char convertCharacter(char l){
-		char result = l;
-		for (LetterConverter.Rule r : rules) {
-			int [] characters = r.getCharacters();
-			for (int i = 0; i < characters.length; i++) {
-				if ((int)l == characters[i]){
-					result = (char) r.getConvertTo();
-				}
-			}
-		}
-		return result;
+		char [] table = this.table;
+		return l < table.length ? table[l] : l;
 	}
 	
 	/**
 	 * Replaces all non-latin characters with corresponding replacements. 
 	 * 
 	 * @param s Input string
-	 * @return replaced string.
+	 * @return replaced string. If no character is replaced, <code>s</code> itself.
 	 */
 	public String convertString(String s){
-		StringBuffer sb = new StringBuffer(s);
-		for (int i = 0; i < s.length(); i++) {
-			sb.replace(i, i+1, ""+convertCharacter(s.charAt(i)));
+		char [] table = this.table;
+		int first = 0;
+		while (first < s.length() && !changes(table, s.charAt(first))){
+			first++;
 		}
-		return sb.toString();
+		if (first == s.length()){
+			return s;
+		}
+
+		char [] chars = s.toCharArray();
+		convert(table, chars, first, chars.length);
+		return new String(chars);
 	}
 	
 	/**
-	 * Adds new rule.
+	 * Replaces all non-latin characters in given part of buffer with corresponding replacements.
+	 * 
+	 * @param buffer Characters to be converted in place
+	 * @param offset Offset of first character
+	 * @param length Number of characters
+	 * @return number of replaced characters.
+	 */
+	public int convert(char [] buffer, int offset, int length){
+		if (offset < 0 || length < 0 || offset + length > buffer.length){
+			throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", buffer length " + buffer.length);
+		}
+		return convert(table, buffer, offset, offset + length);
+	}
+	
+	private static int convert(char [] table, char [] buffer, int from, int to){
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			char c = buffer[i];
+			if (changes(table, c)){
+				buffer[i] = table[c];
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	private static boolean changes(char [] table, char c){
+		return c < table.length && table[c] != c;
+	}
+	
+	/**
+	 * Adds new rule. If a character is given in more than one rule, last added rule is used. Rule is compiled when it is
+	 * added, later changes to its character array have no effect.
+	 * 
 	 * @param r {@link Rule}
 	 */
-	public void addRule(LetterConverter.Rule r){
-		this.rules.add(r);
+	public synchronized void addRule(LetterConverter.Rule r){
+		char [] table = this.table;
+		int [] characters = r.getCharacters();
+		int max = table.length - 1;
+		for (int i = 0; i < characters.length; i++) {
+			if (characters[i] >= 0 && characters[i] <= Character.MAX_VALUE){
+				max = Math.max(max, characters[i]);
+			}
+		}
+
+		char [] compiled = Arrays.copyOf(table, max + 1);
+		for (int c = table.length; c < compiled.length; c++) {
+			compiled[c] = (char) c;
+		}
+		for (int i = 0; i < characters.length; i++) {
+			if (characters[i] >= 0 && characters[i] <= Character.MAX_VALUE){
+				compiled[characters[i]] = (char) r.getConvertTo();
+			}
+		}
+		this.table = compiled;
 	}
 	
 	/**
@@ -102,16 +157,16 @@ public class LetterConverter {
 	 * </ol>
 	 */
 	private void loadDefaultRules(){
-		rules.add(new Rule(new int[] {226,227,228}, 97));  // Converts â,ã,ä to a respectively.
-		rules.add(new Rule(new int[] {194,195,196}, 65));  // Converts Â,Ã,Ä to A respectively.
-		rules.add(new Rule(new int[] {233,234,235}, 101)); // Converts é,ê,ë to e respectively.
-		rules.add(new Rule(new int[] {201,202,203}, 69));  // Converts É,Ê,Ë to E respectively.
-		rules.add(new Rule(new int[] {250,251}, 117)); 	   // Converts ú,û to u respectively.
-		rules.add(new Rule(new int[] {218,219}, 85));      // Converts Ú,Û to U respectively.
-		rules.add(new Rule(new int[] {205,206,207}, 73));  // Converts Í,Î,Ï to I respectively.
-		rules.add(new Rule(new int[] {237,238,239}, 105)); // Converts í,î,ï to i respectively.
-		rules.add(new Rule(new int[] {242,243,244}, 111)); // Converts ò,ó,ô to o respectively.
-		rules.add(new Rule(new int[] {210,211,212}, 79));  // Converts Ò,Ó,Ô to O respectively.
+		addRule(new Rule(new int[] {226,227,228}, 97));  // Converts â,ã,ä to a respectively.
+		addRule(new Rule(new int[] {194,195,196}, 65));  // Converts Â,Ã,Ä to A respectively.
+		addRule(new Rule(new int[] {233,234,235}, 101)); // Converts é,ê,ë to e respectively.
+		addRule(new Rule(new int[] {201,202,203}, 69));  // Converts É,Ê,Ë to E respectively.
+		addRule(new Rule(new int[] {250,251}, 117)); 	   // Converts ú,û to u respectively.
+		addRule(new Rule(new int[] {218,219}, 85));      // Converts Ú,Û to U respectively.
+		addRule(new Rule(new int[] {205,206,207}, 73));  // Converts Í,Î,Ï to I respectively.
+		addRule(new Rule(new int[] {237,238,239}, 105)); // Converts í,î,ï to i respectively.
+		addRule(new Rule(new int[] {242,243,244}, 111)); // Converts ò,ó,ô to o respectively.
+		addRule(new Rule(new int[] {210,211,212}, 79));  // Converts Ò,Ó,Ô to O respectively.
 	}
 	
 	/**
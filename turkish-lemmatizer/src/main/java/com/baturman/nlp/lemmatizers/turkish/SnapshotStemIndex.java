@@ -0,0 +1,299 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link StemIndex} that reads a binary snapshot of a stem trie. Nodes and stems are read directly from the buffer,
+ * so a memory-mapped snapshot can be used as soon as it is opened and takes no heap space for its stems. Processes
+ * that map the same snapshot file share one copy of it in page cache. Stems are only turned into {@link String}s
+ * when they are returned as lemmas, and the same instance is returned for a stem afterwards.
+ * <br/>
+ * Snapshot layout. All numbers are big-endian, letters are positions in {@link TurkishAlphabet}.
+ * <pre>
+ * int    magic, version, nodeCount, edgeCount, stemCount, letterCount, typeCount
+ * int    edgeStart[nodeCount+1]    edges of node n are edgeStart[n] .. edgeStart[n+1]-1
+ * int    stemStart[nodeCount+1]    stems ending at node n are nodeStems[stemStart[n]] .. nodeStems[stemStart[n+1]-1]
+ * int    edgeTarget[edgeCount]
+ * int    nodeStems[stemCount]      stem numbers, in insertion order
+ * int    letterStart[stemCount+1]  letters of stem i are letters[letterStart[i]] .. letters[letterStart[i+1]-1]
+ * short  stemType[stemCount]       index in type table
+ * byte   letters[letterCount]
+ * byte   edgeLetter[edgeCount]     sorted for each node
+ * type table, for each type: short length, char[length]
+ * </pre>
+ *
+ * @author Baturman SEN
+ *
+ */
+class SnapshotStemIndex extends StemIndex {
+
+	static final int MAGIC = 0x544C4D53; // TLMS
+	static final int VERSION = 1;
+	private static final int HEADER_SIZE = 7 * 4;
+
+	private final ByteBuffer buffer;
+	private final int stemCount;
+	private final int edgeStartOffset;
+	private final int stemStartOffset;
+	private final int edgeTargetOffset;
+	private final int nodeStemsOffset;
+	private final int letterStartOffset;
+	private final int stemTypeOffset;
+	private final int lettersOffset;
+	private final int edgeLetterOffset;
+	private final String [] types;
+	private final String [] lemmas;
+
+	/**
+	 * Opens snapshot in given buffer. Snapshot starts at the current position of buffer.
+	 *
+	 * @param buffer Buffer holding snapshot. It is not modified.
+	 * @throws IOException if buffer does not hold a snapshot of a supported version.
+	 */
+	SnapshotStemIndex(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer.slice();
+		if (this.buffer.remaining() < HEADER_SIZE || this.buffer.getInt(0) != MAGIC){
+			throw new IOException("Not a stem dictionary snapshot.");
+		}
+		if (this.buffer.getInt(4) != VERSION){
+			throw new IOException("Unsupported stem dictionary snapshot version " + this.buffer.getInt(4) + ".");
+		}
+		int nodeCount = this.buffer.getInt(8);
+		int edgeCount = this.buffer.getInt(12);
+		this.stemCount = this.buffer.getInt(16);
+		int letterCount = this.buffer.getInt(20);
+		int typeCount = this.buffer.getInt(24);
+
+		this.edgeStartOffset = HEADER_SIZE;
+		this.stemStartOffset = edgeStartOffset + (nodeCount + 1) * 4;
+		this.edgeTargetOffset = stemStartOffset + (nodeCount + 1) * 4;
+		this.nodeStemsOffset = edgeTargetOffset + edgeCount * 4;
+		this.letterStartOffset = nodeStemsOffset + stemCount * 4;
+		this.stemTypeOffset = letterStartOffset + (stemCount + 1) * 4;
+		this.lettersOffset = stemTypeOffset + stemCount * 2;
+		this.edgeLetterOffset = lettersOffset + letterCount;
+
+		this.lemmas = new String[stemCount];
+
+		int offset = edgeLetterOffset + edgeCount;
+		this.types = new String[typeCount];
+		for (int i = 0; i < typeCount; i++) {
+			char [] type = new char[this.buffer.getShort(offset)];
+			offset += 2;
+			for (int j = 0; j < type.length; j++) {
+				type[j] = this.buffer.getChar(offset);
+				offset += 2;
+			}
+			types[i] = new String(type);
+		}
+	}
+
+	@Override
+	int child(int node, int letter){
+		int end = buffer.getInt(edgeStartOffset + (node + 1) * 4);
+		for (int edge = buffer.getInt(edgeStartOffset + node * 4); edge < end; edge++) {
+			int l = buffer.get(edgeLetterOffset + edge);
+			if (l == letter){
+				return buffer.getInt(edgeTargetOffset + edge * 4);
+			}
+			if (l > letter){
+				break;
+			}
+		}
+		return NO_NODE;
+	}
+
+	@Override
+	void addStems(int node, IntList out){
+		int end = buffer.getInt(stemStartOffset + (node + 1) * 4);
+		for (int i = buffer.getInt(stemStartOffset + node * 4); i < end; i++) {
+			out.add(buffer.getInt(nodeStemsOffset + i * 4));
+		}
+	}
+
+	@Override
+	int firstStem(int node){
+		int start = buffer.getInt(stemStartOffset + node * 4);
+		return start < buffer.getInt(stemStartOffset + (node + 1) * 4) ? buffer.getInt(nodeStemsOffset + start * 4) : -1;
+	}
+
+	@Override
+	int size(){
+		return stemCount;
+	}
+
+	@Override
+	int length(int stem){
+		return buffer.getInt(letterStartOffset + (stem + 1) * 4) - buffer.getInt(letterStartOffset + stem * 4);
+	}
+
+	@Override
+	char letter(int stem, int index){
+		return TurkishAlphabet.getLetter(buffer.get(lettersOffset + buffer.getInt(letterStartOffset + stem * 4) + index));
+	}
+
+	@Override
+	String getStem(int stem){
+		String lemma = lemmas[stem];
+		if (lemma != null){
+			return lemma;
+		}
+		int start = buffer.getInt(letterStartOffset + stem * 4);
+		char [] letters = new char[buffer.getInt(letterStartOffset + (stem + 1) * 4) - start];
+		for (int i = 0; i < letters.length; i++) {
+			letters[i] = TurkishAlphabet.getLetter(buffer.get(lettersOffset + start + i));
+		}
+		lemma = new String(letters);
+		lemmas[stem] = lemma;
+		return lemma;
+	}
+
+	@Override
+	String getType(int stem){
+		return types[buffer.getShort(stemTypeOffset + stem * 2)];
+	}
+
+	/**
+	 * Writes snapshot of given index. Stems that have been removed from index are left out and live stems are
+	 * numbered densely in their original order.
+	 *
+	 * @param index {@link StemIndex} to be written.
+	 * @param out stream that snapshot is written to. It is not closed.
+	 * @throws IOException if snapshot cannot be written.
+	 */
+	static void write(StemIndex index, OutputStream out) throws IOException{
+		ByteArrayOutputStream edgeStartBytes = new ByteArrayOutputStream();
+		ByteArrayOutputStream stemStartBytes = new ByteArrayOutputStream();
+		ByteArrayOutputStream edgeTargetBytes = new ByteArrayOutputStream();
+		ByteArrayOutputStream nodeStemsBytes = new ByteArrayOutputStream();
+		ByteArrayOutputStream edgeLetterBytes = new ByteArrayOutputStream();
+		DataOutputStream edgeStart = new DataOutputStream(edgeStartBytes);
+		DataOutputStream stemStart = new DataOutputStream(stemStartBytes);
+		DataOutputStream edgeTarget = new DataOutputStream(edgeTargetBytes);
+		DataOutputStream nodeStems = new DataOutputStream(nodeStemsBytes);
+		DataOutputStream edgeLetter = new DataOutputStream(edgeLetterBytes);
+
+		// Number nodes in breadth-first order
+		IntList nodeStemList = new IntList();
+		IntList nodeStemNumbers = new IntList();
+		boolean [] live = new boolean[index.size()];
+		LinkedList<Integer> queue = new LinkedList<Integer>();
+		queue.add(ROOT);
+		int nodeCount = 0;
+		int edgeCount = 0;
+		int stemCount = 0;
+		while (!queue.isEmpty()){
+			int node = queue.removeFirst();
+			nodeCount++;
+
+			edgeStart.writeInt(edgeCount);
+			for (int c = 0; c < TurkishAlphabet.ALPHABET.length; c++) {
+				int child = index.child(node, c);
+				if (child != NO_NODE){
+					edgeLetter.writeByte(c);
+					edgeTarget.writeInt(nodeCount + queue.size());
+					queue.add(child);
+					edgeCount++;
+				}
+			}
+
+			stemStart.writeInt(stemCount);
+			nodeStemList.clear();
+			index.addStems(node, nodeStemList);
+			for (int i = 0; i < nodeStemList.size(); i++) {
+				nodeStemNumbers.add(nodeStemList.get(i));
+				live[nodeStemList.get(i)] = true;
+				stemCount++;
+			}
+		}
+		edgeStart.writeInt(edgeCount);
+		stemStart.writeInt(stemCount);
+
+		// Live stems keep their order, so lookups give the same results
+		int [] denseNumber = new int[live.length];
+		int liveCount = 0;
+		for (int stem = 0; stem < live.length; stem++) {
+			denseNumber[stem] = live[stem] ? liveCount++ : -1;
+		}
+		for (int i = 0; i < nodeStemNumbers.size(); i++) {
+			nodeStems.writeInt(denseNumber[nodeStemNumbers.get(i)]);
+		}
+
+		// Stem table
+		ByteArrayOutputStream letterStartBytes = new ByteArrayOutputStream();
+		ByteArrayOutputStream stemTypeBytes = new ByteArrayOutputStream();
+		ByteArrayOutputStream letterBytes = new ByteArrayOutputStream();
+		DataOutputStream letterStart = new DataOutputStream(letterStartBytes);
+		DataOutputStream stemType = new DataOutputStream(stemTypeBytes);
+		List<String> types = new ArrayList<String>();
+		Map<String, Integer> typeCodes = new HashMap<String, Integer>();
+		for (int stem = 0; stem < live.length; stem++) {
+			if (!live[stem]){
+				continue;
+			}
+			letterStart.writeInt(letterBytes.size());
+			int length = index.length(stem);
+			for (int i = 0; i < length; i++) {
+				letterBytes.write(TurkishAlphabet.getPosition(index.letter(stem, i)));
+			}
+			String type = index.getType(stem);
+			Integer code = typeCodes.get(type);
+			if (code == null){
+				code = types.size();
+				types.add(type);
+				typeCodes.put(type, code);
+			}
+			stemType.writeShort(code);
+		}
+		letterStart.writeInt(letterBytes.size());
+
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(nodeCount);
+		data.writeInt(edgeCount);
+		data.writeInt(stemCount);
+		data.writeInt(letterBytes.size());
+		data.writeInt(types.size());
+		edgeStartBytes.writeTo(data);
+		stemStartBytes.writeTo(data);
+		edgeTargetBytes.writeTo(data);
+		nodeStemsBytes.writeTo(data);
+		letterStartBytes.writeTo(data);
+		stemTypeBytes.writeTo(data);
+		letterBytes.writeTo(data);
+		edgeLetterBytes.writeTo(data);
+		for (String type : types) {
+			data.writeShort(type.length());
+			data.writeChars(type);
+		}
+		data.flush();
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes to the stems of a {@link TurkishLemmatizer} that are published together. Create a batch with
+ * {@link TurkishLemmatizer#newBatch()}, add and remove stems, then call {@link #commit()}. Words that are being
+ * lemmatized while a batch is committed see either all of its changes or none of them.
+ * <br/>
+ * A batch is used by one thread at a time. It can be reused after it is committed.
+ *
+ * @author Baturman SEN
+ *
+ */
+public class StemBatch {
+
+	private final TurkishLemmatizer lemmatizer;
+	private final List<Change> changes = new ArrayList<Change>();
+
+	/**
+	 * @param lemmatizer lemmatizer that changes are committed to.
+	 */
+	StemBatch(TurkishLemmatizer lemmatizer) {
+		this.lemmatizer = lemmatizer;
+	}
+
+	/**
+	 * Adds stem with default type, see {@link TurkishLemmatizer#addStem(String)}. Stem that is already in dictionary
+	 * when batch is committed is not added again.
+	 *
+	 * @param stem stem to add
+	 * @throws NotAcceptableCharacterException if stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 * @throws StringIndexOutOfBoundsException if stem contains less than two characters.
+	 */
+	public void addStem(String stem) throws NotAcceptableCharacterException{
+		addStem(stem, null);
+	}
+
+	/**
+	 * Adds stem with given type, see {@link TurkishLemmatizer#addStem(String, String)}.
+	 *
+	 * @param stem stem to add
+	 * @param type type of stem. Pass <code>null</code> to use default type.
+	 * @throws NotAcceptableCharacterException if stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 * @throws StringIndexOutOfBoundsException if stem contains less than two characters.
+	 */
+	public void addStem(String stem, String type) throws NotAcceptableCharacterException{
+		changes.add(new Change(TurkishLemmatizer.normalizeStem(stem), type, false));
+	}
+
+	/**
+	 * Removes stem. Stem added earlier in this batch is removed as well.
+	 *
+	 * @param stem stem to remove
+	 * @throws NotAcceptableCharacterException if stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 * @throws StringIndexOutOfBoundsException if stem contains less than two characters.
+	 */
+	public void removeStem(String stem) throws NotAcceptableCharacterException{
+		changes.add(new Change(TurkishLemmatizer.normalizeStem(stem), null, true));
+	}
+
+	/**
+	 * @return number of changes waiting for {@link #commit()}.
+	 */
+	public int size(){
+		return changes.size();
+	}
+
+	/**
+	 * Publishes changes in the order they have been made and clears batch.
+	 *
+	 * @return dictionary version that holds changes, see {@link TurkishLemmatizer#getDictionaryVersion()}.
+	 * @throws IllegalStateException if stem dictionary is frozen.
+	 */
+	public int commit(){
+		int version = lemmatizer.commit(changes);
+		changes.clear();
+		return version;
+	}
+
+	/**
+	 * Discards changes that have not been committed.
+	 */
+	public void clear(){
+		changes.clear();
+	}
+
+	/**
+	 * A stem that is added or removed.
+	 */
+	static final class Change{
+		final String stem;
+		final String type;
+		final boolean remove;
+
+		private Change(String stem, String type, boolean remove) {
+			this.stem = stem;
+			this.type = type;
+			this.remove = remove;
+		}
+	}
+}
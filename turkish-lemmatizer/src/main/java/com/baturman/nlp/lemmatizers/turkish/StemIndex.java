@@ -0,0 +1,354 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+/**
+ * Letter trie of stems. Each edge is labelled with the position of a letter in {@link TurkishAlphabet}, so
+ * walking a word from the root visits every stem that is a prefix of it in time bounded by the word length.
+ * Nodes are identified by integers, root node is <code>0</code>. Stems are identified by their insertion order.
+ * <br/>
+ * Subclasses decide how nodes and stems are stored. Lookups only deal with node and stem numbers, a stem is
+ * turned into a {@link String} only when it is returned as a lemma.
+ *
+ * @author Baturman SEN
+ *
+ */
+abstract class StemIndex {
+
+	static final int ROOT = 0;
+	static final int NO_NODE = -1;
+
+	/**
+	 * Type of a stem whose type is not given.
+	 */
+	static final String DEFAULT_TYPE = "N/A";
+
+	/**
+	 * Stems may differ from the form they take inside a word in at most their last three letters
+	 * (see {@link Stem#getUnluDusmusHali()}).
+	 */
+	private static final int MAX_VARIANT_DISTANCE = 3;
+
+	/**
+	 * @param node Node
+	 * @param letter position of letter in {@link TurkishAlphabet}
+	 * @return child of node that is reached with given letter, or <code>NO_NODE</code>.
+	 */
+	abstract int child(int node, int letter);
+
+	/**
+	 * Appends numbers of stems that end at given node to <code>out</code>.
+	 *
+	 * @param node Node
+	 * @param out list that stem numbers are appended to.
+	 */
+	abstract void addStems(int node, IntList out);
+
+	/**
+	 * @param node Node
+	 * @return number of the first stem that ends at given node, or <code>-1</code> if no stem ends there.
+	 */
+	abstract int firstStem(int node);
+
+	/**
+	 * @return number of stems in index. Stems are numbered below it.
+	 */
+	abstract int size();
+
+	/**
+	 * @return number of stems that can be found in index. It is less than {@link #size()} if some stems have been removed.
+	 */
+	int liveSize(){
+		return size();
+	}
+
+	/**
+	 * @return version of stems, see {@link StemTrie#publish()}. Index that never changes is version <code>0</code>.
+	 */
+	int version(){
+		return 0;
+	}
+
+	/**
+	 * @param stem Stem number
+	 * @return number of letters in stem.
+	 */
+	abstract int length(int stem);
+
+	/**
+	 * @param stem Stem number
+	 * @param index Index of letter
+	 * @return letter at given index of stem.
+	 */
+	abstract char letter(int stem, int index);
+
+	/**
+	 * @param stem Stem number
+	 * @return stem.
+	 */
+	abstract String getStem(int stem);
+
+	/**
+	 * @param stem Stem number
+	 * @return type of stem, see {@link Stem#getType()}.
+	 */
+	abstract String getType(int stem);
+
+	/**
+	 * Checks whether <code>word</code> contains stem in the form that is looked for by given <code>control</code>,
+	 * see {@link #matchingControls(int, CharSequence, int)}.
+	 * 
+	 * @param stem Stem number
+	 * @param word word to be checked.
+	 * @param control control to be applied.
+	 * @return <code>true</code> if stem matches.
+	 */
+	boolean matches(int stem, CharSequence word, Control control){
+		return matchingControls(stem, word, control.bit()) != 0;
+	}
+
+	/**
+	 * Checks <code>word</code> against stem for several controls at once. Stem is compared with the beginning of word
+	 * only once and each control is decided by the length of common prefix and the letter that follows it. Forms are
+	 * not built.
+	 * 
+	 * @param stem Stem number
+	 * @param word word to be checked.
+	 * @param controls controls to be applied, as a mask of {@link Control#bit()}s.
+	 * @return mask of the controls in <code>controls</code> that stem matches.
+	 */
+	int matchingControls(int stem, CharSequence word, int controls){
+		int length = length(stem);
+		char last = letter(stem, length-1);
+		int common = commonPrefix(word, stem, length);
+		int matched = 0;
+
+		if (common == length){
+			matched |= Control.EN_UZUN_KOK_KONTROLU.bit() | Control.PEKISTIRME_KONTROLU.bit();
+		}
+
+		if (common >= length-1){
+			matched |= Control.UNSUZ_DUSMESI_KONTROLU.bit();
+
+			// Letter of word at the position of the last letter of stem
+			char next = length-1 < word.length() ? word.charAt(length-1) : 0;
+			boolean softened;
+			switch (last) {
+			case 'p':
+				softened = next == 'b';
+				break;
+			case 'ç':
+				softened = next == 'c';
+				break;
+			case 't':
+				softened = next == 'd';
+				break;
+			case 'k':
+				// if stem ends with k softening conversion can be either g or ğ
+				softened = next == 'g' || next == 'ğ';
+				break;
+			default:
+				softened = common == length;
+				break;
+			}
+			if (softened){
+				matched |= Control.UNSUZ_YUMUSAMA_KONTROLU.bit();
+			}
+			if ((last == 'e' || last == 'a') && isNarrowVowel(next)){
+				matched |= Control.UNLU_DARALMASI_KONTROLU.bit();
+			}
+		}
+
+		if ((controls & Control.UNLU_DUSMESI_KONTROLU.bit()) != 0 && common >= length-3 && isVowelDropped(word, stem, length)){
+			matched |= Control.UNLU_DUSMESI_KONTROLU.bit();
+		}
+
+		if ((controls & Control.PEKISTIRME_KONTROLU.bit()) != 0 && common < length){
+			for (int start = 1; start + length <= word.length(); start++) {
+				if (regionMatches(word, start, stem, length)){
+					matched |= Control.PEKISTIRME_KONTROLU.bit();
+					break;
+				}
+			}
+		}
+		return matched & controls;
+	}
+
+	/**
+	 * @return number of leading letters of stem that word starts with.
+	 */
+	private int commonPrefix(CharSequence word, int stem, int length){
+		int max = Math.min(length, word.length());
+		int i = 0;
+		while (i < max && word.charAt(i) == letter(stem, i)){
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Checks whether word starts with stem whose narrow vowel has been dropped (oğul -> oğlum). Word must start with
+	 * all letters of stem but its last three.
+	 */
+	private boolean isVowelDropped(CharSequence word, int stem, int length){
+		if (length <= 3 || !(isDroppable(stem, length, 'i') || isDroppable(stem, length, 'ı') || isDroppable(stem, length, 'u') || isDroppable(stem, length, 'ü'))){
+			return false;
+		}
+		// Compare stem without narrow vowels in its last three letters
+		int j = length-3;
+		for (int i = length-3; i < length; i++) {
+			char c = letter(stem, i);
+			if (isNarrowVowel(c)){
+				continue;
+			}
+			if (j >= word.length() || word.charAt(j) != c){
+				return false;
+			}
+			j++;
+		}
+		return true;
+	}
+
+	private boolean regionMatches(CharSequence word, int offset, int stem, int length){
+		for (int i = 0; i < length; i++) {
+			if (word.charAt(offset + i) != letter(stem, i)){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return <code>true</code> if the first occurrence of vowel among the last three letters of stem is not the first of them.
+	 */
+	private boolean isDroppable(int stem, int length, char vowel){
+		for (int i = length-3; i < length; i++) {
+			if (letter(stem, i) == vowel){
+				return i > length-3;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds stem that is equal to the first <code>length</code> letters of <code>word</code>.
+	 *
+	 * @param word word to be looked up. Its letters must be in {@link TurkishAlphabet}.
+	 * @param length number of letters to be looked up.
+	 * @return number of the first such stem, or <code>-1</code>.
+	 */
+	int find(CharSequence word, int length){
+		int node = ROOT;
+		for (int i = 0; i < length && node != NO_NODE; i++) {
+			node = child(node, TurkishAlphabet.getPosition(word.charAt(i)));
+		}
+		return node == NO_NODE ? -1 : firstStem(node);
+	}
+
+	/**
+	 * Collects every stem that may match the beginning of <code>word</code> either as it is or in one of its
+	 * altered forms. These are the stems that are a prefix of the word, and the stems that share a prefix with
+	 * the word and differ from it only in their last letter or in dropped narrow vowels (ı, i, u, ü) among their
+	 * last three letters.
+	 *
+	 * @param word word to be scanned.
+	 * @param out list that numbers of candidate stems are appended to.
+	 */
+	void collectPrefixCandidates(CharSequence word, IntList out){
+		int node = ROOT;
+		int depth = 0;
+		while (node != NO_NODE){
+			addStems(node, out);
+
+			int next = depth < word.length() ? TurkishAlphabet.getPosition(word.charAt(depth)) : NO_NODE;
+			if (depth > 0){
+				// Branch off the word at this depth
+				for (int c = 0; c < TurkishAlphabet.ALPHABET.length; c++) {
+					if (c == next){
+						continue;
+					}
+					int child = child(node, c);
+					if (child == NO_NODE){
+						continue;
+					}
+					if (isNarrowVowel(c)){
+						collectAltered(child, word, depth + 1, depth, depth + MAX_VARIANT_DISTANCE, out);
+					}else{
+						addStems(child, out);
+					}
+				}
+			}
+
+			if (next == NO_NODE){
+				break;
+			}
+			node = child(node, next);
+			depth++;
+		}
+	}
+
+	/**
+	 * Walks below a node that has left the word by a narrow vowel. Further letters must either be narrow vowels
+	 * or follow the word.
+	 */
+	private void collectAltered(int node, CharSequence word, int stemDepth, int wordDepth, int maxDepth, IntList out){
+		addStems(node, out);
+		if (stemDepth >= maxDepth){
+			return;
+		}
+		int next = wordDepth < word.length() ? TurkishAlphabet.getPosition(word.charAt(wordDepth)) : NO_NODE;
+		for (int c = 0; c < TurkishAlphabet.ALPHABET.length; c++) {
+			int child = child(node, c);
+			if (child == NO_NODE){
+				continue;
+			}
+			if (c == next){
+				collectAltered(child, word, stemDepth + 1, wordDepth + 1, maxDepth, out);
+			}else if (isNarrowVowel(c)){
+				collectAltered(child, word, stemDepth + 1, wordDepth, maxDepth, out);
+			}
+		}
+	}
+
+	/**
+	 * Collects every stem that occurs anywhere in <code>word</code>.
+	 *
+	 * @param word word to be scanned.
+	 * @param out list that numbers of found stems are appended to.
+	 */
+	void collectContained(CharSequence word, IntList out){
+		for (int start = 0; start < word.length(); start++) {
+			int node = ROOT;
+			for (int i = start; i < word.length() && node != NO_NODE; i++) {
+				node = child(node, TurkishAlphabet.getPosition(word.charAt(i)));
+				if (node != NO_NODE){
+					addStems(node, out);
+				}
+			}
+		}
+	}
+
+	private static boolean isNarrowVowel(int pos){
+		return isNarrowVowel(TurkishAlphabet.getLetter(pos));
+	}
+
+	private static boolean isNarrowVowel(char c){
+		return c == 'ı' || c == 'i' || c == 'u' || c == 'ü';
+	}
+}
@@ -0,0 +1,347 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stems of a lemmatizer that can be changed while they are read. Changes are made by one writer at a time and become
+ * visible when they are published by {@link #publish()} as a new {@link Version}. A version is a {@link StemIndex}
+ * that never changes, so every lookup made through it sees the same stems however many changes follow.
+ * <br/>
+ * Nodes are kept in flat arrays: children of node <code>n</code> are at <code>children[n * WIDTH + letter]</code> and
+ * stems that end at a node are chained by stem number in insertion order. Letters of all stems are packed into one
+ * character pool and types are kept as codes into a table of distinct types. A stem is turned into a {@link String}
+ * once, the first time it is returned, and the same instance is returned afterwards.
+ * <br/>
+ * Arrays are shared by versions and only appended to: new nodes and stems get numbers that older versions do not
+ * reach, and a removed stem is marked with the version that removed it. Arrays that are full are copied, so older
+ * versions keep reading the arrays they were published with. Removed stems are dropped by rebuilding arrays once they
+ * outnumber live stems.
+ *
+ * @author Baturman SEN
+ *
+ */
+class StemTrie {
+
+	private static final int WIDTH = TurkishAlphabet.ALPHABET.length;
+	private static final int ROOT = StemIndex.ROOT;
+	private static final int NO_NODE = StemIndex.NO_NODE;
+	private static final int NO_STEM = -1;
+
+	/**
+	 * Removal version of a stem that has not been removed.
+	 */
+	private static final int LIVE = Integer.MAX_VALUE;
+
+	private int [] children = new int[16 * WIDTH];
+	private int [] firstStem = new int[16];
+	private int [] lastStem = new int[16];
+	private int nodeCount = 0;
+
+	private char [] letters = new char[64];
+	private int [] letterStart = new int[17];
+	private short [] typeCodes = new short[16];
+	private int [] nextStem = new int[16];
+	private int [] removedIn = new int[16];
+	private String [] lemmas = new String[16];
+	private int stemCount = 0;
+	private int liveCount = 0;
+
+	private String [] types = new String[4];
+	private int typeCount = 0;
+	private Map<String, Integer> typeCodeOf = new HashMap<String, Integer>();
+
+	/**
+	 * Number of the last published version.
+	 */
+	private int version = 0;
+
+	/**
+	 * Creates an empty trie.
+	 */
+	StemTrie() {
+		newNode();
+		typeCode(StemIndex.DEFAULT_TYPE);
+	}
+
+	/**
+	 * Adds stem to trie unless it is already there. Stems are numbered in insertion order. Stem is visible from the
+	 * next published version.
+	 *
+	 * @param stem Stem to add. Stem must only contain letters of {@link TurkishAlphabet}.
+	 * @param type Type of stem, see {@link Stem#getType()}. Pass <code>null</code> to use default type.
+	 * @return number of stem, or <code>-1</code> if stem is already in trie. Type of existing stem is kept.
+	 */
+	int add(String stem, String type){
+		int node = ROOT;
+		for (int i = 0; i < stem.length(); i++) {
+			int index = node * WIDTH + TurkishAlphabet.getPosition(stem.charAt(i));
+			if (children[index] == NO_NODE){
+				int child = newNode();
+				children[index] = child;
+			}
+			node = children[index];
+		}
+		for (int number = firstStem[node]; number != NO_STEM; number = nextStem[number]) {
+			if (removedIn[number] == LIVE){
+				return NO_STEM;
+			}
+		}
+
+		if (stemCount == typeCodes.length){
+			int capacity = stemCount * 2;
+			letterStart = Arrays.copyOf(letterStart, capacity + 1);
+			typeCodes = Arrays.copyOf(typeCodes, capacity);
+			nextStem = Arrays.copyOf(nextStem, capacity);
+			removedIn = Arrays.copyOf(removedIn, capacity);
+			lemmas = Arrays.copyOf(lemmas, capacity);
+		}
+		int start = letterStart[stemCount];
+		if (start + stem.length() > letters.length){
+			letters = Arrays.copyOf(letters, Math.max(letters.length * 2, start + stem.length()));
+		}
+		stem.getChars(0, stem.length(), letters, start);
+
+		int number = stemCount++;
+		letterStart[stemCount] = start + stem.length();
+		typeCodes[number] = typeCode(type == null ? StemIndex.DEFAULT_TYPE : type);
+		nextStem[number] = NO_STEM;
+		removedIn[number] = LIVE;
+		if (firstStem[node] == NO_STEM){
+			firstStem[node] = number;
+		}else{
+			nextStem[lastStem[node]] = number;
+		}
+		lastStem[node] = number;
+		liveCount++;
+		return number;
+	}
+
+	/**
+	 * Removes stem from trie. Stem is not visible from the next published version.
+	 *
+	 * @param stem Stem to remove.
+	 * @return number of removed stems: <code>1</code> if stem is removed, <code>0</code> if it is not in trie.
+	 */
+	int remove(String stem){
+		int node = find(stem);
+		if (node == NO_NODE){
+			return 0;
+		}
+		for (int number = firstStem[node]; number != NO_STEM; number = nextStem[number]) {
+			if (removedIn[number] == LIVE){
+				removedIn[number] = version + 1;
+				liveCount--;
+				return 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return node that stem ends at, or <code>NO_NODE</code>.
+	 */
+	private int find(String stem){
+		int node = ROOT;
+		for (int i = 0; i < stem.length() && node != NO_NODE; i++) {
+			node = children[node * WIDTH + TurkishAlphabet.getPosition(stem.charAt(i))];
+		}
+		return node;
+	}
+
+	/**
+	 * Publishes changes made since the last call.
+	 *
+	 * @return new version.
+	 */
+	Version publish(){
+		if (stemCount - liveCount > liveCount){
+			compact();
+		}
+		version++;
+		return new Version(this);
+	}
+
+	/**
+	 * Rebuilds arrays with live stems only. Stems keep their order, so lookups give the same results.
+	 */
+	private void compact(){
+		StemTrie live = new StemTrie();
+		for (int number = 0; number < stemCount; number++) {
+			if (removedIn[number] == LIVE){
+				live.add(new String(letters, letterStart[number], letterStart[number + 1] - letterStart[number]), types[typeCodes[number]]);
+			}
+		}
+		children = live.children;
+		firstStem = live.firstStem;
+		lastStem = live.lastStem;
+		nodeCount = live.nodeCount;
+		letters = live.letters;
+		letterStart = live.letterStart;
+		typeCodes = live.typeCodes;
+		nextStem = live.nextStem;
+		removedIn = live.removedIn;
+		lemmas = live.lemmas;
+		stemCount = live.stemCount;
+		liveCount = live.liveCount;
+		types = live.types;
+		typeCount = live.typeCount;
+		typeCodeOf = live.typeCodeOf;
+	}
+
+	/**
+	 * @return code of type. Type is added to type table if it is not there.
+	 */
+	private short typeCode(String type){
+		Integer code = typeCodeOf.get(type);
+		if (code == null){
+			if (typeCount > Short.MAX_VALUE){
+				throw new IllegalStateException("Too many stem types.");
+			}
+			if (typeCount == types.length){
+				types = Arrays.copyOf(types, typeCount * 2);
+			}
+			code = typeCount;
+			types[typeCount++] = type;
+			typeCodeOf.put(type, code);
+		}
+		return code.shortValue();
+	}
+
+	/**
+	 * @return number of new node without children and stems.
+	 */
+	private int newNode(){
+		if (nodeCount == firstStem.length){
+			int capacity = nodeCount * 2;
+			children = Arrays.copyOf(children, capacity * WIDTH);
+			firstStem = Arrays.copyOf(firstStem, capacity);
+			lastStem = Arrays.copyOf(lastStem, capacity);
+		}
+		Arrays.fill(children, nodeCount * WIDTH, (nodeCount + 1) * WIDTH, NO_NODE);
+		firstStem[nodeCount] = NO_STEM;
+		lastStem[nodeCount] = NO_STEM;
+		return nodeCount++;
+	}
+
+	/**
+	 * Published version of trie. It only reaches nodes and stems that existed when it was published, and skips stems
+	 * removed before it.
+	 */
+	static final class Version extends StemIndex{
+		private final int [] children;
+		private final int [] firstStem;
+		private final int nodeCount;
+		private final char [] letters;
+		private final int [] letterStart;
+		private final short [] typeCodes;
+		private final int [] nextStem;
+		private final int [] removedIn;
+		private final String [] lemmas;
+		private final int stemCount;
+		private final int liveCount;
+		private final String [] types;
+		private final int version;
+
+		private Version(StemTrie trie) {
+			this.children = trie.children;
+			this.firstStem = trie.firstStem;
+			this.nodeCount = trie.nodeCount;
+			this.letters = trie.letters;
+			this.letterStart = trie.letterStart;
+			this.typeCodes = trie.typeCodes;
+			this.nextStem = trie.nextStem;
+			this.removedIn = trie.removedIn;
+			this.lemmas = trie.lemmas;
+			this.stemCount = trie.stemCount;
+			this.liveCount = trie.liveCount;
+			this.types = trie.types;
+			this.version = trie.version;
+		}
+
+		@Override
+		int child(int node, int letter){
+			int child = children[node * WIDTH + letter];
+			return child < nodeCount ? child : NO_NODE;
+		}
+
+		@Override
+		void addStems(int node, IntList out){
+			// Stems of a node are chained in increasing order, so stems added after this version are at the end
+			for (int stem = firstStem[node]; stem != NO_STEM && stem < stemCount; stem = nextStem[stem]) {
+				if (removedIn[stem] > version){
+					out.add(stem);
+				}
+			}
+		}
+
+		@Override
+		int firstStem(int node){
+			for (int stem = firstStem[node]; stem != NO_STEM && stem < stemCount; stem = nextStem[stem]) {
+				if (removedIn[stem] > version){
+					return stem;
+				}
+			}
+			return NO_STEM;
+		}
+
+		@Override
+		int size(){
+			return stemCount;
+		}
+
+		@Override
+		int liveSize(){
+			return liveCount;
+		}
+
+		@Override
+		int version(){
+			return version;
+		}
+
+		@Override
+		int length(int stem){
+			return letterStart[stem + 1] - letterStart[stem];
+		}
+
+		@Override
+		char letter(int stem, int index){
+			return letters[letterStart[stem] + index];
+		}
+
+		@Override
+		String getStem(int stem){
+			String lemma = lemmas[stem];
+			if (lemma == null){
+				lemma = new String(letters, letterStart[stem], length(stem));
+				lemmas[stem] = lemma;
+			}
+			return lemma;
+		}
+
+		@Override
+		String getType(int stem){
+			return types[typeCodes[stem]];
+		}
+	}
+}
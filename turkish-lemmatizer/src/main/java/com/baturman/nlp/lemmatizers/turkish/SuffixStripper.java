@@ -0,0 +1,399 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.util.Optional;
+
+/**
+ * Finds stems by stripping inflectional suffixes of nouns from the end of words. Suffixes are taken off by a finite
+ * state automaton that follows the order of noun suffixes:
+ * <pre>
+ * stem + plural + possessive + case + ki + plural + case
+ * </pre>
+ * Suffixes are written with archiphonemes that are resolved by vowel harmony and consonant assimilation: <i>A</i> is
+ * a or e, <i>I</i> is ı, i, u or ü, <i>D</i> is d or t. A buffer letter in parenthesis is only used after a vowel,
+ * (I) only after a consonant. So <i>kitaplarımızdakilerden</i> is split as <i>kitap-lar-ımız-da-ki-ler-den</i>.
+ * <br/>
+ * Stem dictionary of the lemmatizer is only looked up at morpheme boundaries. At a boundary, the part before it is
+ * looked up as it is, with its last consonant hardened (kitab -> kitap) and with its dropped vowel restored
+ * (oğl -> oğul) if the suffix starts with a vowel. Longest stem found is the lemma. If no stem is found, word is
+ * lemmatized by {@link TurkishLemmatizer#tryLemmatize(String)}.
+ * <br/>
+ * Stripper keeps no state of its own and each call sees one published version of the dictionary, so it can be shared
+ * by threads while stems are added or removed.
+ *
+ * @author Baturman SEN
+ *
+ */
+public class SuffixStripper {
+
+	private static final int WORD_END = 0;
+	private static final int BEFORE_CASE = 1;
+	private static final int BEFORE_POSSESSIVE = 2;
+	private static final int BEFORE_PLURAL = 3;
+	private static final int BEFORE_KI = 4;
+	private static final int BEFORE_KI_CASE = 5;
+	private static final int BEFORE_PRONOMINAL_N = 6;
+
+	private static final Suffix [] CASES = {
+			new Suffix("(y)I", BEFORE_CASE), // accusative
+			new Suffix("(y)A", BEFORE_CASE), // dative
+			new Suffix("DA", BEFORE_CASE), // locative
+			new Suffix("DAn", BEFORE_CASE), // ablative
+			new Suffix("(n)In", BEFORE_CASE), // genitive
+			new Suffix("(y)lA", BEFORE_CASE), // instrumental
+			new Suffix("nI", BEFORE_PRONOMINAL_N), // evi-n-i
+			new Suffix("nA", BEFORE_PRONOMINAL_N), // evi-n-e
+			new Suffix("nDA", BEFORE_PRONOMINAL_N), // evi-n-de
+			new Suffix("nDAn", BEFORE_PRONOMINAL_N) // evi-n-den
+	};
+
+	private static final Suffix [] POSSESSIVES = {
+			new Suffix("(I)m", BEFORE_POSSESSIVE),
+			new Suffix("(I)n", BEFORE_POSSESSIVE),
+			new Suffix("(s)I", BEFORE_POSSESSIVE),
+			new Suffix("(I)mIz", BEFORE_POSSESSIVE),
+			new Suffix("(I)nIz", BEFORE_POSSESSIVE),
+			new Suffix("lArI", BEFORE_PLURAL)
+	};
+
+	private static final Suffix PLURAL = new Suffix("lAr", BEFORE_PLURAL);
+	private static final Suffix KI = new Suffix("ki", BEFORE_KI);
+
+	/**
+	 * Suffixes that may end the part of word in each state, indexed by state.
+	 */
+	private static final Suffix [][] TRANSITIONS = new Suffix[7][];
+
+	static {
+		TRANSITIONS[WORD_END] = concat(CASES, POSSESSIVES, new Suffix[]{ PLURAL, KI});
+		TRANSITIONS[BEFORE_CASE] = concat(POSSESSIVES, new Suffix[]{ PLURAL, KI});
+		TRANSITIONS[BEFORE_POSSESSIVE] = new Suffix[]{ PLURAL};
+		TRANSITIONS[BEFORE_PLURAL] = new Suffix[]{ KI};
+		TRANSITIONS[BEFORE_KI] = new Suffix[]{ new Suffix("DA", BEFORE_KI_CASE), new Suffix("(n)In", BEFORE_KI_CASE), new Suffix("nDA", BEFORE_PRONOMINAL_N)};
+		TRANSITIONS[BEFORE_KI_CASE] = concat(POSSESSIVES, new Suffix[]{ PLURAL});
+		TRANSITIONS[BEFORE_PRONOMINAL_N] = new Suffix[]{ new Suffix("(s)I", BEFORE_POSSESSIVE), new Suffix("lArI", BEFORE_PLURAL)};
+	}
+
+	private final TurkishLemmatizer lemmatizer;
+
+	/**
+	 * Creates stripper that looks up stems in dictionary of given lemmatizer.
+	 *
+	 * @param lemmatizer {@link TurkishLemmatizer} that holds stem dictionary.
+	 */
+	public SuffixStripper(TurkishLemmatizer lemmatizer) {
+		this.lemmatizer = lemmatizer;
+	}
+
+	/**
+	 * Finds lemma of word. Word is expected in lower case.
+	 *
+	 * @param word String to be lemmatized.
+	 * @return longest stem found at a morpheme boundary, or lemma found by {@link TurkishLemmatizer#tryLemmatize(String)}.
+	 */
+	public String lemmatize(String word){
+		Optional<String> stem = findStem(word);
+		return stem.isPresent() ? stem.get() : lemmatizer.tryLemmatize(word).getLemma();
+	}
+
+	/**
+	 * Finds longest stem of word at a morpheme boundary.
+	 *
+	 * @param word String to be lemmatized. Word is expected in lower case.
+	 * @return stem, or an empty {@link Optional} if no stem is found or word cannot be lemmatized.
+	 */
+	public Optional<String> findStem(String word){
+		if (word.length() < 2 || TurkishAlphabet.validate(word) != -1){
+			return Optional.empty();
+		}
+		StemIndex stems = lemmatizer.getStemIndex();
+		Match match = new Match(stems, word);
+		strip(match, word.length(), WORD_END);
+		return match.stem == -1 ? Optional.<String>empty() : Optional.of(stems.getStem(match.stem));
+	}
+
+	/**
+	 * Looks up the first <code>end</code> letters of word and strips every suffix that may end them in given state.
+	 */
+	private static void strip(Match match, int end, int state){
+		if (end < 2){
+			return;
+		}
+		match.probe(end);
+		String word = match.word;
+		for (Suffix suffix : TRANSITIONS[state]) {
+			int start = suffix.matchBody(word, end);
+			if (start == -1){
+				continue;
+			}
+			switch (suffix.buffer) {
+			case 0:
+				strip(match, start, suffix.next);
+				break;
+			case 'I':
+				// Connecting vowel after a consonant, nothing after a vowel
+				if (start >= 2 && isNarrowVowel(word.charAt(start-1)) && word.charAt(start-1) == narrowVowelAfter(word, start-1) && !isVowel(word.charAt(start-2))){
+					strip(match, start-1, suffix.next);
+				}
+				if (isVowel(word.charAt(start-1))){
+					strip(match, start, suffix.next);
+				}
+				break;
+			default:
+				// Buffer consonant after a vowel, nothing after a consonant
+				if (start >= 2 && word.charAt(start-1) == suffix.buffer && isVowel(word.charAt(start-2))){
+					strip(match, start-1, suffix.next);
+				}
+				if (!isVowel(word.charAt(start-1))){
+					strip(match, start, suffix.next);
+				}
+				break;
+			}
+		}
+	}
+
+	private static Suffix [] concat(Suffix [] ... groups){
+		int length = 0;
+		for (Suffix [] group : groups) {
+			length += group.length;
+		}
+		Suffix [] all = new Suffix[length];
+		int n = 0;
+		for (Suffix [] group : groups) {
+			System.arraycopy(group, 0, all, n, group.length);
+			n += group.length;
+		}
+		return all;
+	}
+
+	private static boolean isVowel(char c){
+		return "aeıioöuü".indexOf(c) >= 0;
+	}
+
+	private static boolean isNarrowVowel(char c){
+		return c == 'ı' || c == 'i' || c == 'u' || c == 'ü';
+	}
+
+	/**
+	 * @return last vowel before given index of word, or <code>0</code> if there is none.
+	 */
+	private static char lastVowel(CharSequence word, int index){
+		for (int i = index - 1; i >= 0; i--) {
+			if (isVowel(word.charAt(i))){
+				return word.charAt(i);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return a or e that follows the last vowel before given index by vowel harmony, or <code>0</code> if any may follow.
+	 */
+	private static char wideVowelAfter(CharSequence word, int index){
+		switch (lastVowel(word, index)) {
+		case 'a':
+		case 'ı':
+		case 'o':
+		case 'u':
+			return 'a';
+		case 'e':
+		case 'i':
+		case 'ö':
+		case 'ü':
+			return 'e';
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * @return ı, i, u or ü that follows the last vowel before given index by vowel harmony, or <code>0</code> if any may follow.
+	 */
+	private static char narrowVowelAfter(CharSequence word, int index){
+		switch (lastVowel(word, index)) {
+		case 'a':
+		case 'ı':
+			return 'ı';
+		case 'e':
+		case 'i':
+			return 'i';
+		case 'o':
+		case 'u':
+			return 'u';
+		case 'ö':
+		case 'ü':
+			return 'ü';
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if letter is a voiceless consonant, after which D is pronounced as t.
+	 */
+	private static boolean isVoiceless(char c){
+		return "fstkçşhp".indexOf(c) >= 0;
+	}
+
+	/**
+	 * @return consonant that may have been softened to given letter, or <code>0</code>.
+	 */
+	private static char hardened(char c){
+		switch (c) {
+		case 'b':
+			return 'p';
+		case 'c':
+			return 'ç';
+		case 'd':
+			return 't';
+		case 'g':
+		case 'ğ':
+			return 'k';
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Suffix written with archiphonemes and an optional buffer letter.
+	 */
+	private static final class Suffix{
+		/**
+		 * Buffer letter, or <code>0</code> if suffix has none.
+		 */
+		private final char buffer;
+		private final String body;
+		/**
+		 * State of automaton after suffix has been stripped.
+		 */
+		private final int next;
+
+		/**
+		 * @param form suffix form like <code>(y)I</code>.
+		 * @param next state of automaton after suffix has been stripped.
+		 */
+		private Suffix(String form, int next) {
+			if (form.charAt(0) == '('){
+				this.buffer = form.charAt(1);
+				this.body = form.substring(3);
+			}else{
+				this.buffer = 0;
+				this.body = form;
+			}
+			this.next = next;
+		}
+
+		/**
+		 * Matches body of suffix with the letters before <code>end</code>. Archiphonemes are checked against the
+		 * letters that precede them in word.
+		 *
+		 * @return index where body starts, or <code>-1</code> if body does not match or nothing is left before it.
+		 */
+		private int matchBody(CharSequence word, int end){
+			int start = end - body.length();
+			if (start < 1){
+				return -1;
+			}
+			for (int i = 0; i < body.length(); i++) {
+				char c = word.charAt(start + i);
+				switch (body.charAt(i)) {
+				case 'A':
+					if ((c != 'a' && c != 'e') || !harmonizes(c, wideVowelAfter(word, start + i))){
+						return -1;
+					}
+					break;
+				case 'I':
+					if (!isNarrowVowel(c) || !harmonizes(c, narrowVowelAfter(word, start + i))){
+						return -1;
+					}
+					break;
+				case 'D':
+					if ((c != 'd' && c != 't') || (c == 't') != isVoiceless(word.charAt(start + i - 1))){
+						return -1;
+					}
+					break;
+				default:
+					if (c != body.charAt(i)){
+						return -1;
+					}
+					break;
+				}
+			}
+			return start;
+		}
+
+		private static boolean harmonizes(char c, char expected){
+			return expected == 0 || c == expected;
+		}
+	}
+
+	/**
+	 * Longest stem found so far for a word.
+	 */
+	private static final class Match{
+		private final StemIndex stems;
+		private final String word;
+		private int stem = -1;
+		private int length = 0;
+
+		private Match(StemIndex stems, String word) {
+			this.stems = stems;
+			this.word = word;
+		}
+
+		/**
+		 * Looks up the first <code>end</code> letters of word, and their hardened and vowel restored forms.
+		 */
+		private void probe(int end){
+			if (end < length){
+				// Nothing longer can be found here
+				return;
+			}
+			found(stems.find(word, end));
+
+			if (end == word.length() || !isVowel(word.charAt(end))){
+				return;
+			}
+			char last = word.charAt(end-1);
+			char hard = hardened(last);
+			if (hard != 0){
+				StringBuilder form = new StringBuilder(end);
+				form.append(word, 0, end - 1).append(hard);
+				found(stems.find(form, end));
+			}
+			if (end >= 3 && !isVowel(last) && !isVowel(word.charAt(end-2))){
+				char vowel = narrowVowelAfter(word, end - 1);
+				if (vowel != 0){
+					// oğl -> oğul
+					StringBuilder form = new StringBuilder(end + 1);
+					form.append(word, 0, end - 1).append(vowel).append(last);
+					found(stems.find(form, end + 1));
+				}
+			}
+		}
+
+		private void found(int candidate){
+			if (candidate != -1 && stems.length(candidate) > length){
+				stem = candidate;
+				length = stems.length(candidate);
+			}
+		}
+	}
+}
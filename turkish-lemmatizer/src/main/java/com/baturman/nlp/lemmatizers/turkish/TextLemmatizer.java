@@ -0,0 +1,254 @@
+/**
+ *
+ * Copyright 2011, 2013 Baturman SEN
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lemmatizes raw text. Text is tokenized, normalized and validated in a single pass over its characters, then valid
+ * words are lemmatized together. No exception is thrown for tokens that are not Turkish words.
+ * <br/>
+ * A token is a run of letters and digits, every other character separates tokens. For each character of a token,
+ * {@link LetterConverter} rules are applied and case is folded with Turkish rules (I to ı, İ to i). Tokens that have
+ * at least two letters and only letters of {@link TurkishAlphabet} are lemmatized. Other tokens are either skipped or
+ * passed through with their own text as lemma, see {@link InvalidTokens}.
+ * 
+ * @author Baturman SEN
+ *
+ */
+public class TextLemmatizer {
+
+	/**
+	 * What to do with tokens that cannot be lemmatized.
+	 */
+	public enum InvalidTokens{
+		/**
+		 * Token is not reported.
+		 */
+		SKIP,
+
+		/**
+		 * Token is reported with its own text as lemma.
+		 */
+		PASS_THROUGH
+	}
+
+	/**
+	 * Receives tokens of text in order.
+	 */
+	public interface TokenHandler{
+		/**
+		 * @param text processed text
+		 * @param start offset of the first character of token in text
+		 * @param end offset after the last character of token in text
+		 * @param word normalized token. For a passed through token, its text.
+		 * @param lemma lemma of token. For a passed through token, its text.
+		 * @param valid <code>true</code> if token has been lemmatized.
+		 */
+		void token(CharSequence text, int start, int end, String word, String lemma, boolean valid);
+	}
+
+	/**
+	 * {@link LetterConverter} with default rules that white space separated tokens are normalized with.
+	 */
+	private static final LetterConverter DEFAULT_CONVERTER = new LetterConverter(true);
+
+	private final TurkishLemmatizer lemmatizer;
+	private final LetterConverter converter;
+	private final InvalidTokens invalidTokens;
+
+	/**
+	 * Creates text lemmatizer.
+	 * 
+	 * @param lemmatizer {@link TurkishLemmatizer} that words are lemmatized with.
+	 * @param converter {@link LetterConverter} applied to each character, or <code>null</code>.
+	 * @param invalidTokens what to do with tokens that cannot be lemmatized.
+	 */
+	public TextLemmatizer(TurkishLemmatizer lemmatizer, LetterConverter converter, InvalidTokens invalidTokens) {
+		this.lemmatizer = lemmatizer;
+		this.converter = converter;
+		this.invalidTokens = invalidTokens;
+	}
+
+	/**
+	 * Lemmatizes text and reports its tokens to handler in text order.
+	 * 
+	 * @param text raw text
+	 * @param handler {@link TokenHandler} that receives tokens.
+	 */
+	public void process(CharSequence text, TokenHandler handler){
+		IntList bounds = new IntList();
+		List<String> words = new ArrayList<String>();
+		IntList valid = new IntList();
+
+		char [] word = new char[32];
+		int length = 0;
+		boolean acceptable = true;
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			char c = i < text.length() ? text.charAt(i) : ' ';
+			if (Character.isLetterOrDigit(c)){
+				if (start == -1){
+					start = i;
+					length = 0;
+					acceptable = true;
+				}
+				char folded = fold(converter == null ? c : converter.convertCharacter(c));
+				acceptable &= TurkishAlphabet.getPosition(folded) != -1;
+				if (length == word.length){
+					word = Arrays.copyOf(word, length * 2);
+				}
+				word[length++] = folded;
+				continue;
+			}
+			if (start == -1){
+				continue;
+			}
+
+			acceptable &= length >= 2;
+			if (acceptable || invalidTokens == InvalidTokens.PASS_THROUGH){
+				bounds.add(start);
+				bounds.add(i);
+				words.add(acceptable ? new String(word, 0, length) : text.subSequence(start, i).toString());
+				valid.add(acceptable ? 1 : 0);
+			}
+			start = -1;
+		}
+
+		List<String> lemmatized = new ArrayList<String>(words.size());
+		for (int t = 0; t < words.size(); t++) {
+			if (valid.get(t) == 1){
+				lemmatized.add(words.get(t));
+			}
+		}
+		String [] lemmas = lemmatizeWords(lemmatizer, lemmatized);
+
+		int next = 0;
+		for (int t = 0; t < words.size(); t++) {
+			boolean v = valid.get(t) == 1;
+			String w = words.get(t);
+			handler.token(text, bounds.get(2 * t), bounds.get(2 * t + 1), w, v ? lemmas[next++] : w, v);
+		}
+	}
+
+	/**
+	 * Lemmatizes text.
+	 * 
+	 * @param text raw text
+	 * @return lemmas of tokens in text order. Passed through tokens are returned as they are.
+	 */
+	public List<String> lemmatize(CharSequence text){
+		final List<String> lemmas = new ArrayList<String>();
+		process(text, new TokenHandler() {
+			@Override
+			public void token(CharSequence text, int start, int end, String word, String lemma, boolean valid) {
+				lemmas.add(lemma);
+			}
+		});
+		return lemmas;
+	}
+
+	/**
+	 * Lemmatizes tokens that are separated by white space, as {@link CorpusLemmatizer} and {@link LemmaServer} do.
+	 * Tokens are normalized like tokens of text are, see {@link #normalize(String)}. A token that is not acceptable, see
+	 * {@link #isAcceptable(CharSequence)}, is its own lemma.
+	 * 
+	 * @param lemmatizer {@link TurkishLemmatizer} that words are lemmatized with.
+	 * @param tokens tokens as they are in text.
+	 * @return lemmas of tokens, in the order of tokens.
+	 */
+	static String [] lemmatizeTokens(TurkishLemmatizer lemmatizer, List<String> tokens){
+		List<String> words = new ArrayList<String>(tokens.size());
+		IntList accepted = new IntList(tokens.size());
+		int t = 0;
+		for (String token : tokens) {
+			String word = normalize(token);
+			if (isAcceptable(word)){
+				accepted.add(t);
+				words.add(word);
+			}
+			t++;
+		}
+
+		String [] lemmas = tokens.toArray(new String[tokens.size()]);
+		String [] found = lemmatizeWords(lemmatizer, words);
+		for (int i = 0; i < found.length; i++) {
+			lemmas[accepted.get(i)] = found[i];
+		}
+		return lemmas;
+	}
+
+	/**
+	 * Lemmatizes words that have been checked by {@link #isAcceptable(CharSequence)}.
+	 * 
+	 * @param lemmatizer {@link TurkishLemmatizer} that words are lemmatized with.
+	 * @param words acceptable words.
+	 * @return lemmas of words, in the order of words.
+	 */
+	static String [] lemmatizeWords(TurkishLemmatizer lemmatizer, List<String> words){
+		try {
+			return lemmatizer.lemmatizeAll(words);
+		} catch (NotAcceptableCharacterException e) {
+			// Words are validated by caller
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Normalizes a white space separated token: default {@link LetterConverter} rules are applied to each character
+	 * and case is folded with Turkish rules, see {@link #fold(char)}.
+	 * 
+	 * @param token Token
+	 * @return word to be lemmatized.
+	 */
+	static String normalize(String token){
+		char [] word = new char[token.length()];
+		for (int i = 0; i < word.length; i++) {
+			word[i] = fold(DEFAULT_CONVERTER.convertCharacter(token.charAt(i)));
+		}
+		return new String(word);
+	}
+
+	/**
+	 * @param word normalized word
+	 * @return <code>true</code> if word can be lemmatized: it has at least two letters and only letters of {@link TurkishAlphabet}.
+	 */
+	static boolean isAcceptable(CharSequence word){
+		return word.length() >= 2 && TurkishAlphabet.validate(word) == -1;
+	}
+
+	/**
+	 * Folds case of a character with Turkish rules.
+	 * 
+	 * @param c Character
+	 * @return lower case of character.
+	 */
+	static char fold(char c){
+		switch (c) {
+		case 'I':
+			return 'ı';
+		case 'İ':
+			return 'i';
+		default:
+			return Character.toLowerCase(c);
+		}
+	}
+}
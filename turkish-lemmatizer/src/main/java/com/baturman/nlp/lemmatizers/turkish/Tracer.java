@@ -28,20 +28,11 @@ package com.baturman.nlp.lemmatizers.turkish;
 public class Tracer {
 	private int control;
 	private boolean result;
-	private String [] names = {
-			"EN_UZUN_KOK_KONTROLU", 
-			"UNSUZ_YUMUSAMA_KONTROLU", 
-			"UNLU_DARALMASI_KONTROLU", 
-			"UNLU_DUSMESI_KONTROLU",
-			"UNSUZ_DUSMESI_KONTROLU",
-			"PEKISTIRME_KONTROLU",
-			"UNLU_DEGISIMI"
-	};
 	
 	/**
 	 * Creates {@link Tracer} object with given values.
 	 * 
-	 * @param control Control item
+	 * @param control Control item, ordinal of {@link Control}.
 	 * @param result Result of control process.
 	 */
 	public Tracer(int control, boolean result) {
@@ -49,6 +40,16 @@ public class Tracer {
 		this.result = result;
 	}
 
+	/**
+	 * Creates {@link Tracer} object with given values.
+	 * 
+	 * @param control Control item
+	 * @param result Result of control process.
+	 */
+	public Tracer(Control control, boolean result) {
+		this(control.ordinal(), result);
+	}
+
 	/**
 	 * @return control result.
 	 */
@@ -80,11 +81,18 @@ public class Tracer {
 		this.control = v;
 	}
 
+	/**
+	 * @return control item.
+	 */
+	public Control getControl(){
+		return Control.of(control);
+	}
+
 	/**
 	 * @return name of control.
 	 */
 	public String getControlName(){
-		return names[control];
+		return getControl().name();
 	}
 
 
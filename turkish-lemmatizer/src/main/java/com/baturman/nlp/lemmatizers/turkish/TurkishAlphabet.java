@@ -18,6 +18,8 @@
 
 package com.baturman.nlp.lemmatizers.turkish;
 
+import java.util.Arrays;
+
 /**
  * 
  * This class defines 29 letter Turkish Latin alphabet. Use {@link TurkishAlphabet}.display() to display letters. 
@@ -51,19 +53,40 @@ public class TurkishAlphabet {
 		return (char)ALPHABET[pos];
 	}
 	
+	/**
+	 * Positions of letters indexed by character code. Highest code in alphabet is 351 (ş).
+	 */
+	private final static byte [] POSITIONS = new byte[352];
+
+	static {
+		Arrays.fill(POSITIONS, (byte)-1);
+		for (int i = 0; i < ALPHABET.length; i++) {
+			POSITIONS[ALPHABET[i]] = (byte)i;
+		}
+	}
+
 	/**
 	 * @param letter
 	 * @return the position of given character. If return value is equal to <code>-1</code> that means, given character is not in Turkish Latin Alphabet
 	 */
 	public static int getPosition(char letter){
-		int pos = -1;
-		for (int i = 0; i < ALPHABET.length; i++) {
-			if (ALPHABET[i] == (int)letter){
-				pos = i;
-				break;
+		return letter < POSITIONS.length ? POSITIONS[letter] : -1;
+	}
+
+	/**
+	 * Finds the first character of given text that is not in Turkish Latin Alphabet.
+	 * 
+	 * @param text Text to be checked
+	 * @return offset of the first invalid character, or <code>-1</code> if all characters are letters of Turkish Latin Alphabet.
+	 */
+	public static int validate(CharSequence text){
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c >= POSITIONS.length || POSITIONS[c] == -1){
+				return i;
 			}
 		}
-		return pos;
+		return -1;
 	}
 	
 }
\ No newline at end of file
@@ -19,12 +19,11 @@
 package com.baturman.nlp.lemmatizers.turkish;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
-import java.util.Stack;
-import java.util.Vector;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Turkish Lemmatizer class. It provides users method to lemmatize given word. 
@@ -34,67 +33,355 @@ import java.util.regex.Pattern;
  */
 public class TurkishLemmatizer {
 
-	private Vector<Vector<Vector<Stem>>> stems = new Vector<Vector<Vector<Stem>>>();
+	/**
+	 * Current version of stems. Each word is lemmatized with the version that is current when it starts.
+	 */
+	private volatile StemIndex stems;
+	/**
+	 * Stems that are changed by writers, or <code>null</code> if stems cannot be changed. Writers lock it.
+	 */
+	private final StemTrie trie;
 	private static Locale TR_LOCALE = new Locale("tr", "TR");
-	private static final int EN_UZUN_KOK_KONTROLU = 0;
-	private static final int UNSUZ_YUMUSAMA_KONTROLU = 1; // pçtk olayı
-	private static final int UNLU_DARALMASI_KONTROLU = 2; // bekl-e-mek bekl-i-yor olayı
-	private static final int UNLU_DUSMESI_KONTROLU = 3; // oğul oğlum olayı
-	private static final int UNSUZ_DUSMESI_KONTROLU = 4; // küçücük, ufacık, yükselmek, alçalmak
-	private static final int PEKISTIRME_KONTROLU = 5; // sapasağlam -> sağlam
-	private static final int UNLU_DEGISIMI = 6; // sana -> sen, bana -> ben
+	private static final int NO_STEM = -1;
+
+	/**
+	 * Buckets that are scanned for a word, indexed by position of the second letter of word. Buckets are given by
+	 * position of the second letter of their stems: the second letter of word, its hard form and the vowels e and a.
+	 * A bucket is listed once.
+	 */
+	private static final int [][] NEIGHBOUR_BUCKETS = new int[TurkishAlphabet.ALPHABET.length][];
+
+	/**
+	 * Number of leading {@link #NEIGHBOUR_BUCKETS} that are checked for ÜNSÜZ YUMUŞAMA.
+	 */
+	private static final int [] SOFTENED_BUCKET_COUNT = new int[TurkishAlphabet.ALPHABET.length];
+
+	static {
+		for (int pos = 0; pos < NEIGHBOUR_BUCKETS.length; pos++) {
+			int [] buckets = new int[4];
+			int count = addBucket(buckets, 0, pos);
+			count = addBucket(buckets, count, TurkishAlphabet.getPosition(hardened(TurkishAlphabet.getLetter(pos))));
+			SOFTENED_BUCKET_COUNT[pos] = count;
+			count = addBucket(buckets, count, TurkishAlphabet.getPosition('e'));
+			count = addBucket(buckets, count, TurkishAlphabet.getPosition('a'));
+			NEIGHBOUR_BUCKETS[pos] = Arrays.copyOf(buckets, count);
+		}
+	}
+
+	/**
+	 * Controls that compare stems with the beginning of word. They are applied together, see
+	 * {@link #findLongestMatchedStems(IntList, int, CharSequence, Workspace)}.
+	 */
+	private static final Control [] PREFIX_CONTROLS = { Control.UNSUZ_YUMUSAMA_KONTROLU, Control.UNLU_DARALMASI_KONTROLU,
+			Control.UNLU_DUSMESI_KONTROLU, Control.UNSUZ_DUSMESI_KONTROLU, Control.EN_UZUN_KOK_KONTROLU};
+
+	/**
+	 * Controls that may produce lemma, in the order that they are credited for it, see {@link LemmaMetrics}.
+	 */
+	private static final Control [] CANDIDATE_CONTROLS = { Control.EN_UZUN_KOK_KONTROLU, Control.UNSUZ_YUMUSAMA_KONTROLU,
+			Control.UNLU_DARALMASI_KONTROLU, Control.UNLU_DUSMESI_KONTROLU, Control.UNSUZ_DUSMESI_KONTROLU, Control.PEKISTIRME_KONTROLU};
+
+	/**
+	 * Result of the last {@link #lemmatize(String)} call of each thread.
+	 */
+	private final ThreadLocal<LemmaResult> lastResult = new ThreadLocal<LemmaResult>();
+
+	/**
+	 * Working buffers of each thread for {@link #lemmatize(CharSequence, StringBuilder)}.
+	 */
+	private final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(() -> new Workspace(false));
+
+	private volatile boolean frozen = false;
+
+	private volatile LemmaCache cache;
 
-	private ArrayList<String> candidates;
-	private Stack<Tracer> trace;
+	private volatile boolean tracing = false;
 
-	private boolean stemFound = false;
+	private volatile LemmaMetrics metrics;
 
 	
 	/**
-	 * Default constructor. Initilizes stem list with empty {@link Vector}s.
+	 * Default constructor. Initilizes an empty stem index.
 	 */
 	public TurkishLemmatizer() {
-		initializeStemList();
+		this.trie = new StemTrie();
+		this.stems = trie.publish();
 	}
 
 	/**
-	 * Initializes an empty two-level tree structure to save stems. 
+	 * Creates a frozen lemmatizer that uses given stem index.
+	 * 
+	 * @param stems {@link StemIndex} to use.
 	 */
-	private void initializeStemList(){
-		// Prepare an empty two-level tree structure
-		for (int i = 0; i < TurkishAlphabet.ALPHABET.length; i++) {
-			stems.add(i, new Vector<Vector<Stem>>()); // for first letters
-			stems.elementAt(i).setSize(TurkishAlphabet.ALPHABET.length);
-			for (int j = 0; j < TurkishAlphabet.ALPHABET.length; j++) {
-				stems.elementAt(i).add(j, new Vector<Stem>()); // for second letters
-			}
+	TurkishLemmatizer(StemIndex stems) {
+		this.trie = null;
+		this.stems = stems;
+		this.frozen = true;
+	}
+
+	/**
+	 * Freezes stem dictionary. No stem can be added or removed after this call. Lemmatizer can be shared by any number
+	 * of threads calling {@link #lemmatizeFull(String)} at the same time, whether it is frozen or not.
+	 */
+	public void freeze(){
+		if (trie == null){
+			return;
+		}
+		// Wait for a batch that is being committed
+		synchronized (trie) {
+			this.frozen = true;
 		}
 	}
 
+	/**
+	 * @return <code>true</code> if stem dictionary is frozen.
+	 */
+	public boolean isFrozen(){
+		return this.frozen;
+	}
+
+	/**
+	 * Sets cache that results are kept in. Words found in cache are not lemmatized again. Cache is invalidated
+	 * whenever a stem is added.
+	 * 
+	 * @param cache {@link LemmaCache} to use. Pass <code>null</code> to disable caching.
+	 */
+	public void setCache(LemmaCache cache){
+		this.cache = cache;
+	}
+
+	/**
+	 * @return cache of lemmatizer, or <code>null</code> if results are not cached.
+	 */
+	public LemmaCache getCache(){
+		return this.cache;
+	}
+
+	/**
+	 * Enables or disables trace of {@link #lemmatize(String)}, {@link #lemmatizeFull(String)} and {@link #tryLemmatize(String)}.
+	 * Trace is disabled by default. Use {@link #lemmatizeFull(String, boolean)} to trace a single call.
+	 * 
+	 * @param tracing pass <code>true</code> to record applied controls of each word.
+	 */
+	public void setTracing(boolean tracing){
+		this.tracing = tracing;
+	}
+
+	/**
+	 * @return <code>true</code> if applied controls are recorded by default.
+	 */
+	public boolean isTracing(){
+		return this.tracing;
+	}
+
+	/**
+	 * Sets metrics that lemmatization is counted in. Words taken from cache are not counted.
+	 * 
+	 * @param metrics {@link LemmaMetrics} to use. Pass <code>null</code> to disable counting.
+	 */
+	public void setMetrics(LemmaMetrics metrics){
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @return metrics of lemmatizer, or <code>null</code> if lemmatization is not counted.
+	 */
+	public LemmaMetrics getMetrics(){
+		return this.metrics;
+	}
+
 	/**
 	 * Adds and validates stem to stem list.
 	 * 
 	 * @param stem {@link Stem} to add
 	 * @throws NotAcceptableCharacterException if stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 * @throws StringIndexOutOfBoundsException if stem contains less than two characters.
+	 * @throws IllegalStateException if stem dictionary is frozen.
 	 */
 	public void addStem(String stem) throws NotAcceptableCharacterException{
-		for (int i = 0; i < stem.length(); i++) {
-			char letter = stem.charAt(i);
-			int position = TurkishAlphabet.getPosition(letter);
-			if (position == -1){
-				throw new NotAcceptableCharacterException(letter, stem, i);	
+		addStemIfAbsent(stem, null);
+	}
+
+	/**
+	 * Adds and validates stem with given type to stem list. A stem is kept once: adding it again does not change its type.
+	 * 
+	 * @param stem {@link Stem} to add
+	 * @param type type of stem, see {@link Stem#setType(String)}. Pass <code>null</code> to use default type.
+	 * @throws NotAcceptableCharacterException if stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 * @throws StringIndexOutOfBoundsException if stem contains less than two characters.
+	 * @throws IllegalStateException if stem dictionary is frozen.
+	 */
+	public void addStem(String stem, String type) throws NotAcceptableCharacterException{
+		addStemIfAbsent(stem, type);
+	}
+
+	/**
+	 * Adds stem unless it is already in stem list, see {@link #addStem(String)}.
+	 * 
+	 * @param stem {@link Stem} to add
+	 * @return <code>true</code> if stem is added, <code>false</code> if it is already in stem list.
+	 * @throws NotAcceptableCharacterException if stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 * @throws StringIndexOutOfBoundsException if stem contains less than two characters.
+	 * @throws IllegalStateException if stem dictionary is frozen.
+	 */
+	public boolean addStemIfAbsent(String stem) throws NotAcceptableCharacterException{
+		return addStemIfAbsent(stem, null);
+	}
+
+	/**
+	 * Adds stem with given type unless it is already in stem list, see {@link #addStem(String, String)}.
+	 * 
+	 * @param stem {@link Stem} to add
+	 * @param type type of stem, see {@link Stem#setType(String)}. Pass <code>null</code> to use default type.
+	 * @return <code>true</code> if stem is added, <code>false</code> if it is already in stem list. Type of a stem
+	 * that is already in stem list is not changed.
+	 * @throws NotAcceptableCharacterException if stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 * @throws StringIndexOutOfBoundsException if stem contains less than two characters.
+	 * @throws IllegalStateException if stem dictionary is frozen.
+	 */
+	public boolean addStemIfAbsent(String stem, String type) throws NotAcceptableCharacterException{
+		checkNotFrozen();
+		stem = normalizeStem(stem);
+		synchronized (trie) {
+			checkNotFrozen();
+			if (trie.add(stem, type) == NO_STEM){
+				return false;
+			}
+			publish();
+			return true;
+		}
+	}
+
+	/**
+	 * Removes stem from stem list.
+	 * 
+	 * @param stem stem to remove
+	 * @return <code>true</code> if stem is removed, <code>false</code> if it is not in stem list.
+	 * @throws NotAcceptableCharacterException if stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 * @throws StringIndexOutOfBoundsException if stem contains less than two characters.
+	 * @throws IllegalStateException if stem dictionary is frozen.
+	 */
+	public boolean removeStem(String stem) throws NotAcceptableCharacterException{
+		checkNotFrozen();
+		stem = normalizeStem(stem);
+		synchronized (trie) {
+			checkNotFrozen();
+			if (trie.remove(stem) == 0){
+				return false;
+			}
+			publish();
+			return true;
+		}
+	}
+
+	/**
+	 * Checks whether stem is in stem list.
+	 * 
+	 * @param stem stem to look up
+	 * @return <code>true</code> if stem is in stem list. A text that cannot be a stem is not in it.
+	 */
+	public boolean containsStem(String stem){
+		if (TurkishAlphabet.validate(stem) != -1){
+			return false;
+		}
+		stem = stem.toLowerCase(TR_LOCALE);
+		return stem.length() >= 2 && stems.find(stem, stem.length()) != NO_STEM;
+	}
+
+	/**
+	 * @return number of stems in stem list.
+	 */
+	public int size(){
+		return stems.liveSize();
+	}
+
+	/**
+	 * Creates a batch of stem changes that are published together by {@link StemBatch#commit()}. Use it to change
+	 * stems while words are being lemmatized.
+	 * 
+	 * @return empty batch.
+	 */
+	public StemBatch newBatch(){
+		return new StemBatch(this);
+	}
+
+	/**
+	 * Applies changes of a batch and publishes them as one version.
+	 * 
+	 * @param changes changes in the order they have been made.
+	 * @return new dictionary version.
+	 * @throws IllegalStateException if stem dictionary is frozen.
+	 */
+	int commit(List<StemBatch.Change> changes){
+		checkNotFrozen();
+		synchronized (trie) {
+			checkNotFrozen();
+			for (StemBatch.Change change : changes) {
+				if (change.remove){
+					trie.remove(change.stem);
+				}else{
+					trie.add(change.stem, change.type);
+				}
 			}
+			return publish();
+		}
+	}
+
+	/**
+	 * Publishes changes of trie and clears cache. Caller must hold the lock of trie.
+	 * 
+	 * @return new dictionary version.
+	 */
+	private int publish(){
+		StemIndex stems = trie.publish();
+		this.stems = stems;
+		LemmaCache cache = this.cache;
+		if (cache != null){
+			cache.invalidate();
+		}
+		return stems.version();
+	}
+
+	private void checkNotFrozen(){
+		if (frozen){
+			throw new IllegalStateException("Stem dictionary is frozen.");
+		}
+	}
+
+	/**
+	 * Validates stem and turns it into lower case.
+	 * 
+	 * @param stem stem to be added or removed.
+	 * @return stem in lower case.
+	 * @throws NotAcceptableCharacterException if stem contains letter that does not exists in standard Turkish Latin alphabet.
+	 * @throws StringIndexOutOfBoundsException if stem contains less than two characters.
+	 */
+	static String normalizeStem(String stem) throws NotAcceptableCharacterException{
+		int invalid = TurkishAlphabet.validate(stem);
+		if (invalid != -1){
+			throw new NotAcceptableCharacterException(stem.charAt(invalid), stem, invalid);
 		}
 
 		stem = stem.toLowerCase(TR_LOCALE);
-		char firstLetter = stem.charAt(0);
-		char secondLetter = stem.charAt(1);
+		if (stem.length() < 2){
+			// Stems are grouped by their first two letters
+			throw new StringIndexOutOfBoundsException(stem.length());
+		}
+		return stem;
+	}
 
-		int firstLetterIndex = TurkishAlphabet.getPosition(firstLetter);
-		int secondLetterIndex = TurkishAlphabet.getPosition(secondLetter);
+	/**
+	 * @return version of stem dictionary. It grows every time stems are changed.
+	 */
+	public int getDictionaryVersion(){
+		return stems.version();
+	}
 
-		Stem s = new Stem(stem);
-		stems.get(firstLetterIndex).get(secondLetterIndex).add(s);
+	/**
+	 * @return current version of stems.
+	 */
+	StemIndex getStemIndex(){
+		return stems;
 	}
 
 	/**
@@ -102,48 +389,416 @@ public class TurkishLemmatizer {
 	 * 2 characters will throw {@link StringIndexOutOfBoundsException}. This function returns first found stem as a result. <b>HOWEVER</b>, stem of
 	 * the word may not be the return value. User <code>getAllCandidates()</code> function to retrieve all candidate stems. The correct stem might be
 	 * one of them. 
+	 * <br/>
+	 * <code>getAllCandidates()</code>, <code>getTrace()</code> and <code>isLemmatizationSuccessful()</code> report the last call made by the
+	 * calling thread. Use {@link #lemmatizeFull(String)} to get them together. Trace is only recorded if it is enabled by {@link #setTracing(boolean)}.
 	 *  
 	 * @param word String to be lemmatized.
 	 * @return longest stem candidates.
 	 * @throws NotAcceptableCharacterException if <code>word</code> contains non-latin Turkish characters.
 	 * @throws StringIndexOutOfBoundsException if word contains less than two characters.
 	 */
-	@SuppressWarnings("unchecked")
 	public String lemmatize(String word) throws NotAcceptableCharacterException, StringIndexOutOfBoundsException{
+		LemmaResult result = lemmatizeFull(word);
+		lastResult.set(result);
+		return result.getLemma();
+	}
+
+	/**
+	 * Finds stem of a given word, see {@link #lemmatize(String)}. This function does not change the state of lemmatizer, so it can be
+	 * called by many threads at the same time once stem dictionary is loaded.
+	 *  
+	 * @param word String to be lemmatized.
+	 * @return {@link LemmaResult} that holds lemma, candidate stems and applied controls if tracing is enabled.
+	 * @throws NotAcceptableCharacterException if <code>word</code> contains non-latin Turkish characters.
+	 * @throws StringIndexOutOfBoundsException if word contains less than two characters.
+	 */
+	public LemmaResult lemmatizeFull(String word) throws NotAcceptableCharacterException, StringIndexOutOfBoundsException{
+		return lemmatizeFull(word, tracing);
+	}
+
+	/**
+	 * Finds stem of a given word, see {@link #lemmatizeFull(String)}. Results taken from cache always hold their trace.
+	 *  
+	 * @param word String to be lemmatized.
+	 * @param trace pass <code>true</code> to record applied controls.
+	 * @return {@link LemmaResult} that holds lemma, candidate stems and applied controls.
+	 * @throws NotAcceptableCharacterException if <code>word</code> contains non-latin Turkish characters.
+	 * @throws StringIndexOutOfBoundsException if word contains less than two characters.
+	 */
+	public LemmaResult lemmatizeFull(String word, boolean trace) throws NotAcceptableCharacterException, StringIndexOutOfBoundsException{
+		LemmaCache cache = this.cache;
+		LemmaResult result = lemmatizeFull(word, new Workspace(trace || cache != null), cache);
+		check(word, result.getStatus());
+		return result;
+	}
+
+	/**
+	 * Finds stem of a given word without throwing exception for words that cannot be lemmatized. Outcome is reported by
+	 * {@link LemmaResult#getStatus()}:
+	 * <ul>
+	 * <li>A word with an apostrophe, like <i>İstanbul'da</i>, is taken as a proper noun and its lemma is the part before
+	 * apostrophe.</li>
+	 * <li>A word with less than two characters or with a character outside {@link TurkishAlphabet} is its own lemma.</li>
+	 * <li>Other words are lemmatized as in {@link #lemmatizeFull(String)}.</li>
+	 * </ul>
+	 * Like {@link #lemmatizeFull(String)}, this function can be called by many threads at the same time.
+	 *  
+	 * @param word String to be lemmatized.
+	 * @return {@link LemmaResult} of word.
+	 */
+	public LemmaResult tryLemmatize(String word){
+		int apostrophe = indexOfApostrophe(word);
+		if (apostrophe > 0){
+			return new LemmaResult(word, word.substring(0, apostrophe), LemmaResult.Status.PROPER_NOUN);
+		}
+		LemmaCache cache = this.cache;
+		return lemmatizeFull(word, new Workspace(tracing || cache != null), cache);
+	}
+
+	/**
+	 * Finds lemma of a given word, see {@link #tryLemmatize(String)}.
+	 *  
+	 * @param word String to be lemmatized.
+	 * @return lemma if a stem is found or word is a proper noun, otherwise an empty {@link Optional}.
+	 */
+	public Optional<String> findLemma(String word){
+		LemmaResult result = tryLemmatize(word);
+		switch (result.getStatus()) {
+		case STEM_FOUND:
+		case PROPER_NOUN:
+			return Optional.of(result.getLemma());
+		default:
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Finds stem of a given word and appends it to <code>sink</code>, see {@link #tryLemmatize(String)}. Stems are matched
+	 * against the word as it is and working buffers are kept per thread, so once they have grown, this function allocates
+	 * nothing. Results are not looked up in cache and no trace is recorded.
+	 *  
+	 * @param word word to be lemmatized.
+	 * @param sink lemma is appended to it. Word itself is appended if no stem is found or word cannot be lemmatized.
+	 * @return status of lemmatization.
+	 */
+	public LemmaResult.Status lemmatize(CharSequence word, StringBuilder sink){
+		int apostrophe = indexOfApostrophe(word);
+		if (apostrophe > 0){
+			sink.append(word, 0, apostrophe);
+			return LemmaResult.Status.PROPER_NOUN;
+		}
+
+		Workspace workspace = workspaces.get();
+		runControls(word, workspace);
+		StemIndex stems = workspace.stems;
+		if (workspace.fixedLemma != null){
+			sink.append(workspace.fixedLemma);
+		}else if (workspace.lemma == NO_STEM){
+			sink.append(word);
+		}else{
+			for (int i = 0, length = stems.length(workspace.lemma); i < length; i++) {
+				sink.append(stems.letter(workspace.lemma, i));
+			}
+		}
+
+		if (workspace.status != null){
+			return workspace.status;
+		}
+		return workspace.stemFound ? LemmaResult.Status.STEM_FOUND : LemmaResult.Status.NO_STEM;
+	}
+
+	/**
+	 * Finds stem of a word in given part of buffer and appends it to <code>sink</code>, see {@link #lemmatize(CharSequence, StringBuilder)}.
+	 *  
+	 * @param buffer Characters of word
+	 * @param offset Offset of the first character of word
+	 * @param length Number of characters in word
+	 * @param sink lemma is appended to it.
+	 * @return status of lemmatization.
+	 */
+	public LemmaResult.Status lemmatize(char [] buffer, int offset, int length, StringBuilder sink){
+		if (offset < 0 || length < 0 || offset + length > buffer.length){
+			throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", buffer length " + buffer.length);
+		}
+		CharSlice slice = workspaces.get().slice;
+		slice.set(buffer, offset, length);
+		try {
+			return lemmatize(slice, sink);
+		} finally {
+			slice.set(null, 0, 0);
+		}
+	}
+
+	/**
+	 * @return index of the first apostrophe in word, or <code>-1</code>.
+	 */
+	private static int indexOfApostrophe(CharSequence word){
+		for (int i = 0; i < word.length(); i++) {
+			char c = word.charAt(i);
+			if (c == '\'' || c == '\u2019'){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Throws the exception of legacy functions for words that cannot be lemmatized.
+	 * 
+	 * @param word lemmatized word.
+	 * @param status status of word, or <code>null</code> if word is valid.
+	 * @throws NotAcceptableCharacterException if <code>word</code> contains non-latin Turkish characters.
+	 * @throws StringIndexOutOfBoundsException if word contains less than two characters.
+	 */
+	private static void check(String word, LemmaResult.Status status) throws NotAcceptableCharacterException, StringIndexOutOfBoundsException{
+		if (status == LemmaResult.Status.NOT_ACCEPTABLE){
+			int invalid = TurkishAlphabet.validate(word);
+			throw new NotAcceptableCharacterException(word.charAt(invalid), word, invalid);
+		}
+		if (status == LemmaResult.Status.TOO_SHORT){
+			throw new StringIndexOutOfBoundsException(word.length());
+		}
+	}
+
+	/**
+	 * Finds result of a given word in cache, or lemmatizes it by using given working buffers and caches its result.
+	 * 
+	 * @param word String to be lemmatized.
+	 * @param workspace working buffers. It must record trace if <code>cache</code> is not <code>null</code>.
+	 * @param cache cache of results, or <code>null</code>.
+	 * @return result of word. Words that cannot be lemmatized are reported by status of result and they are not cached.
+	 */
+	private LemmaResult lemmatizeFull(String word, Workspace workspace, LemmaCache cache){
+		LemmaResult result = cache == null ? null : cache.get(word);
+		if (result == null){
+			long generation = cache == null ? 0 : cache.generation();
+			String lemma = lemmatize(word, workspace);
+			if (workspace.status != null){
+				return new LemmaResult(word, lemma, workspace.status);
+			}
+			result = new LemmaResult(word, lemma, candidateList(workspace), workspace.trace, workspace.stemFound);
+			if (cache != null){
+				cache.put(word, result, generation);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return candidate stems left in workspace.
+	 */
+	private List<String> candidateList(Workspace workspace){
+		List<String> candidates = new ArrayList<String>(workspace.candidates.size());
+		for (int i = 0; i < workspace.candidates.size(); i++) {
+			candidates.add(workspace.stems.getStem(workspace.candidates.get(i)));
+		}
+		return candidates;
+	}
+
+	/**
+	 * Finds stem of a given word, see {@link #lemmatizeFull(String, Workspace, LemmaCache)}. Result is only built when it is cached,
+	 * so <code>workspace</code> must record trace if <code>cache</code> is not <code>null</code>.
+	 */
+	private String lemmatizeCached(String word, Workspace workspace, LemmaCache cache) throws NotAcceptableCharacterException, StringIndexOutOfBoundsException{
+		if (cache == null){
+			String lemma = lemmatize(word, workspace);
+			check(word, workspace.status);
+			return lemma;
+		}
+		LemmaResult result = lemmatizeFull(word, workspace, cache);
+		check(word, result.getStatus());
+		return result.getLemma();
+	}
+
+	/**
+	 * Finds stems of given words, see {@link #lemmatize(String)}. Working buffers are shared by all words and no trace is
+	 * recorded. Like {@link #lemmatizeFull(String)}, this function can be called by many threads at the same time. If a cache
+	 * is set, words are looked up in it first.
+	 *  
+	 * @param words Strings to be lemmatized.
+	 * @return lemmas of words. Lemma of <code>words[i]</code> is at index <code>i</code>.
+	 * @throws NotAcceptableCharacterException if a word contains non-latin Turkish characters.
+	 * @throws StringIndexOutOfBoundsException if a word contains less than two characters.
+	 */
+	public String [] lemmatizeAll(String [] words) throws NotAcceptableCharacterException, StringIndexOutOfBoundsException{
+		LemmaCache cache = this.cache;
+		Workspace workspace = new Workspace(cache != null);
+		String [] lemmas = new String[words.length];
+		for (int i = 0; i < words.length; i++) {
+			lemmas[i] = lemmatizeCached(words[i], workspace, cache);
+		}
+		return lemmas;
+	}
+
+	/**
+	 * Finds stems of given words, see {@link #lemmatizeAll(String[])}.
+	 *  
+	 * @param words Strings to be lemmatized.
+	 * @return lemmas of words, in the order of <code>words</code>.
+	 * @throws NotAcceptableCharacterException if a word contains non-latin Turkish characters.
+	 * @throws StringIndexOutOfBoundsException if a word contains less than two characters.
+	 */
+	public String [] lemmatizeAll(List<String> words) throws NotAcceptableCharacterException, StringIndexOutOfBoundsException{
+		LemmaCache cache = this.cache;
+		Workspace workspace = new Workspace(cache != null);
+		String [] lemmas = new String[words.size()];
+		int i = 0;
+		for (String word : words) {
+			lemmas[i++] = lemmatizeCached(word, workspace, cache);
+		}
+		return lemmas;
+	}
+
+	/**
+	 * Finds stems of given words, see {@link #lemmatizeAll(String[])}. Stream is consumed.
+	 *  
+	 * @param words Strings to be lemmatized.
+	 * @return lemmas of words, in the encounter order of <code>words</code>.
+	 * @throws NotAcceptableCharacterException if a word contains non-latin Turkish characters.
+	 * @throws StringIndexOutOfBoundsException if a word contains less than two characters.
+	 */
+	public String [] lemmatizeAll(Stream<String> words) throws NotAcceptableCharacterException, StringIndexOutOfBoundsException{
+		return lemmatizeAll(words.toArray(String[]::new));
+	}
+
+	/**
+	 * Finds stems of given words, see {@link #lemmatizeFull(String)}. Working buffers are shared by all words.
+	 *  
+	 * @param words Strings to be lemmatized.
+	 * @param trace pass <code>true</code> to record applied controls of each word.
+	 * @return results of words. Result of <code>words[i]</code> is at index <code>i</code>.
+	 * @throws NotAcceptableCharacterException if a word contains non-latin Turkish characters.
+	 * @throws StringIndexOutOfBoundsException if a word contains less than two characters.
+	 */
+	public LemmaResult [] lemmatizeAllFull(String [] words, boolean trace) throws NotAcceptableCharacterException, StringIndexOutOfBoundsException{
+		LemmaCache cache = this.cache;
+		if (cache != null){
+			// Cached results always carry their trace
+			Workspace workspace = new Workspace(true);
+			LemmaResult [] results = new LemmaResult[words.length];
+			for (int i = 0; i < words.length; i++) {
+				results[i] = lemmatizeFull(words[i], workspace, cache);
+				check(words[i], results[i].getStatus());
+			}
+			return results;
+		}
+
+		Workspace workspace = new Workspace(trace);
+		LemmaResult [] results = new LemmaResult[words.length];
+		for (int i = 0; i < words.length; i++) {
+			String lemma = lemmatize(words[i], workspace);
+			check(words[i], workspace.status);
+			results[i] = new LemmaResult(words[i], lemma, candidateList(workspace), workspace.trace, workspace.stemFound);
+		}
+		return results;
+	}
+
+	/**
+	 * Finds stem of a given word by using given working buffers, see {@link #runControls(CharSequence, Workspace)}.
+	 *  
+	 * @param word String to be lemmatized.
+	 * @param workspace working buffers.
+	 * @return lemma. If word cannot be lemmatized, its status is left in <code>workspace</code> and word itself is returned.
+	 */
+	private String lemmatize(String word, Workspace workspace){
+		runControls(word, workspace);
+		if (workspace.fixedLemma != null){
+			return workspace.fixedLemma;
+		}
+		return workspace.lemma == NO_STEM ? word : workspace.stems.getStem(workspace.lemma);
+	}
+
+	/**
+	 * Finds stem of a given word by using given working buffers, see {@link #runControls(CharSequence, Workspace, LemmaMetrics)}.
+	 * Word is counted in metrics if they are set.
+	 *  
+	 * @param word word to be lemmatized.
+	 * @param workspace working buffers.
+	 */
+	private void runControls(CharSequence word, Workspace workspace){
+		LemmaMetrics metrics = this.metrics;
+		if (metrics == null){
+			runControls(word, workspace, null);
+			return;
+		}
+		long start = System.nanoTime();
+		runControls(word, workspace, metrics);
+		long nanos = System.nanoTime() - start;
+		metrics.record(nanos, workspace.stemFound, workspace.status != null, winner(workspace));
+	}
+
+	/**
+	 * @return control that has produced lemma left in workspace, or <code>null</code> if no stem is found.
+	 */
+	private static Control winner(Workspace workspace){
+		if (workspace.fixedLemma != null){
+			return Control.UNLU_DEGISIMI;
+		}
+		if (workspace.lemma == NO_STEM){
+			return null;
+		}
+		for (Control control : CANDIDATE_CONTROLS) {
+			if (workspace.matched[control.ordinal()] == workspace.lemma){
+				return control;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds stem of a given word by using given working buffers. Candidates, trace and lemma are left in <code>workspace</code>.
+	 * Stems are kept as stem numbers, so no string is built.
+	 *  
+	 * @param word word to be lemmatized.
+	 * @param workspace working buffers.
+	 * @param metrics metrics that sizes of scanned buckets are counted in, or <code>null</code>.
+	 */
+	private void runControls(CharSequence word, Workspace workspace, LemmaMetrics metrics){
 		
-		// Initialize trace
-		trace = new Stack<Tracer>();
-		candidates = new ArrayList<String>();
+		// Initialize trace and take current version of stems
+		workspace.reset();
+		StemIndex stems = this.stems;
+		workspace.stems = stems;
+		IntList candidates = workspace.candidates;
 		
 		// Handle ÜNLÜ DEĞİŞİMİ. Only seen in sana and bana
-		if (word.equalsIgnoreCase("sana")){
-			trace.push(new Tracer(TurkishLemmatizer.UNLU_DEGISIMI, true));
-			return "sen";
+		if (equalsIgnoreCase(word, "sana")){
+			workspace.trace(Control.UNLU_DEGISIMI, true);
+			workspace.stemFound = true;
+			workspace.fixedLemma = "sen";
+			return;
 		}
 		
-		if (word.equalsIgnoreCase("bana")){
-			trace.push(new Tracer(TurkishLemmatizer.UNLU_DEGISIMI, true));
-			return "ben";
+		if (equalsIgnoreCase(word, "bana")){
+			workspace.trace(Control.UNLU_DEGISIMI, true);
+			workspace.stemFound = true;
+			workspace.fixedLemma = "ben";
+			return;
 		}
 		
 		// Validate word
-		for (int i = 0; i < word.length(); i++) {
-			char letter = word.charAt(i);
-			int position = TurkishAlphabet.getPosition(letter);
-			if (position == -1){
-				throw new NotAcceptableCharacterException(letter, word, i);	
-			}
+		if (TurkishAlphabet.validate(word) != -1){
+			workspace.status = LemmaResult.Status.NOT_ACCEPTABLE;
+			return;
+		}
+		if (word.length() < 2){
+			workspace.status = LemmaResult.Status.TOO_SHORT;
+			return;
 		}
 
 		// Check word and load stem list depending on first two character
-		char firstCharacter = word.charAt(0);
-		char secondCharacter = word.charAt(1);
-		int firstPos = TurkishAlphabet.getPosition(firstCharacter);
-		int secondPos = TurkishAlphabet.getPosition(secondCharacter);
+		int firstPos = TurkishAlphabet.getPosition(word.charAt(0));
+		int secondPos = TurkishAlphabet.getPosition(word.charAt(1));
 
-		Vector<Stem> list = (Vector<Stem>) stems.get(firstPos).get(secondPos).clone();
+		// Stems are scanned bucket by bucket, where a bucket holds the stems that start with the same two letters.
+		// First bucket holds the stems that start with the first two characters of the word.
+		int [] buckets = NEIGHBOUR_BUCKETS[secondPos];
 
-		String candidate = "";
+		IntList prefixCandidates = workspace.prefixCandidates;
+		stems.collectPrefixCandidates(word, prefixCandidates);
+
+		int candidate = NO_STEM;
 		
 		/**
 		 * ÜNSÜZ YUMUŞAMA KONTROLÜ 
@@ -153,42 +808,12 @@ public class TurkishLemmatizer {
 		 * dönüşmesi
 		 */
 
-		// Check that word may have two letter stem and second character of the stem might be softened.
-		// So, we should also load stems that second letter is not softened 
-		// For example, word "edildi" has "et" as stem, however we are loading stems that starts with ed.
-		// So lemmatizer fails to find correct stem.
-
-		switch (secondCharacter) {
-		case 'd':
-			secondPos = TurkishAlphabet.getPosition('t');
-			break;
-		case 'c':
-			secondPos = TurkishAlphabet.getPosition('ç');
-			break;
-		case 'g':
-			secondPos = TurkishAlphabet.getPosition('k');
-			break;
-		case 'ğ':
-			secondPos = TurkishAlphabet.getPosition('k');
-			break;
-		case 'b':
-			secondPos = TurkishAlphabet.getPosition('p');
-			break;
-		default:
-			break;
-		}
-
-		list.addAll(stems.get(firstPos).get(secondPos));
-
-		candidate = findLongestMatchedStem(list, word, TurkishLemmatizer.UNSUZ_YUMUSAMA_KONTROLU);
-
-		if (candidate.length() > 0){
-			trace.push(new Tracer(TurkishLemmatizer.UNSUZ_YUMUSAMA_KONTROLU, true));
-			candidates.add(candidate);
-		}else{
-			trace.push(new Tracer(TurkishLemmatizer.UNSUZ_YUMUSAMA_KONTROLU, false));
-		}
-
+		// Stems of the first buckets are also checked for ÜNSÜZ YUMUŞAMA, see hardened(char)
+		int softenedBuckets = SOFTENED_BUCKET_COUNT[secondPos];
+		IntList list = workspace.list;
+		list.clear();
+		orderByBucket(stems, prefixCandidates, firstPos, buckets, 0, softenedBuckets, list, metrics);
+		int softenedEnd = list.size();
 
 		/**
 		 * 
@@ -203,19 +828,7 @@ public class TurkishLemmatizer {
 		// Check that word may have two letter stem for UNLU daralması
 		// diyorum -> de stems that second letter e,a should also be loaded. before checking for unlu daralması
 
-		secondPos = TurkishAlphabet.getPosition('e');
-		list.addAll(stems.get(firstPos).get(secondPos));
-
-		secondPos = TurkishAlphabet.getPosition('a');
-		list.addAll(stems.get(firstPos).get(secondPos));
-
-		candidate = findLongestMatchedStem(list, word, TurkishLemmatizer.UNLU_DARALMASI_KONTROLU);
-		if (candidate.length() > 0){
-			trace.push(new Tracer(TurkishLemmatizer.UNLU_DARALMASI_KONTROLU, true));
-			candidates.add(candidate);
-		}else{
-			trace.push(new Tracer(TurkishLemmatizer.UNLU_DARALMASI_KONTROLU, false));
-		}
+		orderByBucket(stems, prefixCandidates, firstPos, buckets, softenedBuckets, buckets.length, list, metrics);
 
 		/**
 		 * 
@@ -228,13 +841,6 @@ public class TurkishLemmatizer {
 		 * gönül -> gönlüm
 		 * 
 		 */
-		candidate = findLongestMatchedStem(list, word, TurkishLemmatizer.UNLU_DUSMESI_KONTROLU);
-		if (candidate.length() > 0){
-			trace.push(new Tracer(TurkishLemmatizer.UNLU_DUSMESI_KONTROLU, true));
-			candidates.add(candidate);
-		}else{
-			trace.push(new Tracer(TurkishLemmatizer.UNLU_DUSMESI_KONTROLU, false));
-		}
 
 		/**
 		 * 
@@ -249,13 +855,14 @@ public class TurkishLemmatizer {
 		 * seyrek-l  →  seyrel–
 		 * 
 		 */
-		candidate = findLongestMatchedStem(list, word, TurkishLemmatizer.UNSUZ_DUSMESI_KONTROLU);
-		if (candidate.length() > 0){
-			trace.push(new Tracer(TurkishLemmatizer.UNSUZ_DUSMESI_KONTROLU, true));
-			candidates.add(candidate);
-		}else{
-			trace.push(new Tracer(TurkishLemmatizer.UNSUZ_DUSMESI_KONTROLU, false));
-		}
+
+		// Controls that look at the beginning of word are applied in one pass over the list
+		findLongestMatchedStems(list, softenedEnd, word, workspace);
+		int [] matched = workspace.matched;
+		addCandidate(workspace, Control.UNSUZ_YUMUSAMA_KONTROLU, matched[Control.UNSUZ_YUMUSAMA_KONTROLU.ordinal()]);
+		addCandidate(workspace, Control.UNLU_DARALMASI_KONTROLU, matched[Control.UNLU_DARALMASI_KONTROLU.ordinal()]);
+		addCandidate(workspace, Control.UNLU_DUSMESI_KONTROLU, matched[Control.UNLU_DUSMESI_KONTROLU.ordinal()]);
+		addCandidate(workspace, Control.UNSUZ_DUSMESI_KONTROLU, matched[Control.UNSUZ_DUSMESI_KONTROLU.ordinal()]);
 
 		/**
 		 * PEKİŞTİRME KONTROLU
@@ -267,27 +874,16 @@ public class TurkishLemmatizer {
 		 * gündüz -> güpegündüz
 		 *
 		 */
-		candidate = findLongestMatchedStem(list, word, TurkishLemmatizer.PEKISTIRME_KONTROLU);
-		if (candidate.length() > 0){
-			trace.push(new Tracer(TurkishLemmatizer.PEKISTIRME_KONTROLU, true));
-			candidates.add(candidate);
-		}else{
-			trace.push(new Tracer(TurkishLemmatizer.PEKISTIRME_KONTROLU, false));
-		}
+		stems.collectContained(word, workspace.contained);
+		workspace.containedList.clear();
+		orderByBucket(stems, workspace.contained, firstPos, buckets, 0, buckets.length, workspace.containedList, null);
+		candidate = findLongestMatchedStem(stems, workspace.containedList, word, Control.PEKISTIRME_KONTROLU);
+		matched[Control.PEKISTIRME_KONTROLU.ordinal()] = candidate;
+		addCandidate(workspace, Control.PEKISTIRME_KONTROLU, candidate);
 		
 		
-		String [] allCandidates = this.getAllCandidates();
-		String longest = "";
-		for (int i = 0; i < allCandidates.length; i++) {
-			if (allCandidates[i].length() > longest.length()){
-				longest = allCandidates[i];
-			}
-		}
-		if (allCandidates.length < 1){
-			stemFound = false;
-		}else{
-			stemFound = true;
-		}
+		int longest = findLongestCandidate(stems, candidates);
+		workspace.stemFound = candidates.size() > 0;
 		
 		/**
 		 * EN UZUN KÖK KONTROLÜ 
@@ -295,127 +891,226 @@ public class TurkishLemmatizer {
 
 		// First check if there is a longest matched stem in word
 
-		candidate = findLongestMatchedStem(list, word, TurkishLemmatizer.EN_UZUN_KOK_KONTROLU);
+		candidate = matched[Control.EN_UZUN_KOK_KONTROLU.ordinal()];
 
-		if (candidate.length() > 0){
-			trace.push(new Tracer(TurkishLemmatizer.EN_UZUN_KOK_KONTROLU, true));
+		if (candidate != NO_STEM){
+			workspace.trace(Control.EN_UZUN_KOK_KONTROLU, true);
 			candidates.add(candidate);
-			return candidate;
+			workspace.lemma = candidate;
+			return;
 		}else{
-			trace.push(new Tracer(TurkishLemmatizer.EN_UZUN_KOK_KONTROLU, false));
+			workspace.trace(Control.EN_UZUN_KOK_KONTROLU, false);
 		}
 		
-		return longest.length() < 1 ? word:longest;
+		workspace.lemma = longest;
 	}
 
 	/**
-	 * Finds longest matched stem of <code>word</code> in given <code>stemList</code> by considering given <code>control</code> variable.
+	 * Check that word may have two letter stem and second character of the stem might be softened.
+	 * So, we should also load stems that second letter is not softened 
+	 * For example, word "edildi" has "et" as stem, however we are loading stems that starts with ed.
+	 * So lemmatizer fails to find correct stem.
 	 * 
-	 * @param stemList {@link Stem} list to be scanned.
-	 * @param word word to be found
-	 * @param control control object.
-	 * <br/>
-	 * <b>Control objects</b><br/>
-	 * <ol>
-	 * <li>EN_UZUN_KOK_KONTROLU</li>
-	 * <li>UNSUZ_YUMUSAMA_KONTROLU</li>
-	 * <li>UNLU_DARALMASI_KONTROLU</li>
-	 * <li>UNLU_DUSMESI_KONTROLU</li>
-	 * <li>UNSUZ_DUSMESI_KONTROLU</li>
-	 * <li>PEKISTIRME_KONTROLU</li>
-	 * </ol> 
+	 * @param second second letter of word.
+	 * @return letter that may have been softened to <code>second</code>, or <code>second</code> itself.
+	 */
+	private static char hardened(char second){
+		switch (second) {
+		case 'd':
+			return 't';
+		case 'c':
+			return 'ç';
+		case 'g':
+			return 'k';
+		case 'ğ':
+			return 'k';
+		case 'b':
+			return 'p';
+		default:
+			return second;
+		}
+	}
+
+	/**
+	 * Appends bucket to given buckets unless it is already there.
 	 * 
-	 * @return stem of given word. If stem cannot be found an empty string returns.
-	 */
-	private String findLongestMatchedStem(Vector<Stem> stemList, String word, int control){
-		String longest = "";
-
-		for (Stem stem : stemList) {
-			Matcher m1;
-			Matcher m2;
-
-			switch (control) {
-			case TurkishLemmatizer.EN_UZUN_KOK_KONTROLU:
-				m1 = stem.getPattern().matcher(word);
-				if (m1.find() && m1.start() == 0){
-					if (longest.length() < stem.getStem().length()){
-						longest = stem.getStem();
-					}
-				}
+	 * @return number of buckets.
+	 */
+	private static int addBucket(int [] buckets, int count, int bucket){
+		for (int i = 0; i < count; i++) {
+			if (buckets[i] == bucket){
+				return count;
+			}
+		}
+		buckets[count] = bucket;
+		return count + 1;
+	}
 
-				break;
-			case TurkishLemmatizer.UNSUZ_YUMUSAMA_KONTROLU:
-
-				if (stem.getStem().endsWith("k")){
-					// if stem ends with k softening conversion can be either g or ğ
-					m1 = Pattern.compile(stem.getSoftenedConversion()[0]).matcher(word);
-					m2 = Pattern.compile(stem.getSoftenedConversion()[1]).matcher(word);
-					if ((m1.find() && m1.start() == 0) || (m2.find() && m2.start() == 0)){
-						if (longest.length() < stem.getStem().length()){
-							longest = stem.getStem();
-						}
-					}
-				}else{
-					// otherwise get softened version
-					m1 = Pattern.compile(stem.getSoftenedConversion()[0]).matcher(word);
-					if (m1.find() && m1.start() == 0){
-						if (longest.length() < stem.getStem().length()){
-							longest = stem.getStem();
-						}
-					}
-				}
+	/**
+	 * Finds longest candidate. Among candidates of the same length, the one that comes first in iteration order of a
+	 * {@link java.util.HashSet} of candidate strings is taken: set of at most six strings keeps its default sixteen
+	 * buckets, so it iterates bucket by bucket and in insertion order within a bucket.
+	 * 
+	 * @param stems stems that candidates are numbered in.
+	 * @param candidates numbers of candidate stems in the order they have been found.
+	 * @return number of longest candidate, or <code>NO_STEM</code> if there is no candidate.
+	 */
+	private static int findLongestCandidate(StemIndex stems, IntList candidates){
+		int longest = NO_STEM;
+		int longestLength = 0;
+		int longestBucket = 0;
+		for (int i = 0; i < candidates.size(); i++) {
+			int stem = candidates.get(i);
+			int length = stems.length(stem);
+			if (length < longestLength){
+				continue;
+			}
+			int bucket = hashBucket(stems, stem, length);
+			if (length > longestLength || bucket < longestBucket){
+				longest = stem;
+				longestLength = length;
+				longestBucket = bucket;
+			}
+		}
+		return longest;
+	}
 
+	/**
+	 * @return bucket of stem string in a {@link java.util.HashMap} of sixteen buckets.
+	 */
+	private static int hashBucket(StemIndex stems, int stem, int length){
+		int h = 0;
+		for (int i = 0; i < length; i++) {
+			h = 31 * h + stems.letter(stem, i);
+		}
+		return (h ^ (h >>> 16)) & 15;
+	}
 
-				break;
-			case TurkishLemmatizer.UNLU_DARALMASI_KONTROLU:
-				String s = stem.getStem();
-				if (s.endsWith("e") || s.endsWith("a")){
-					String [] daralmis = stem.getDaralmisHalleri();
-					for (int i = 0; i < daralmis.length; i++) {
-						m1 = Pattern.compile(daralmis[i]).matcher(word);
-						if (m1.find() && m1.start() == 0){
-							if (longest.length() < stem.getStem().length()){
-								longest = stem.getStem();
-								break;
-							}
-						}
-					}
+	/**
+	 * Compares word with a lower case ASCII constant like {@link String#equalsIgnoreCase(String)} does.
+	 */
+	private static boolean equalsIgnoreCase(CharSequence word, String constant){
+		if (word.length() != constant.length()){
+			return false;
+		}
+		for (int i = 0; i < word.length(); i++) {
+			char c = word.charAt(i);
+			char k = constant.charAt(i);
+			if (c != k && Character.toUpperCase(c) != Character.toUpperCase(k) && Character.toLowerCase(c) != Character.toLowerCase(k)){
+				return false;
+			}
+		}
+		return true;
+	}
 
+	/**
+	 * Selects stems that fall into given buckets and appends them bucket by bucket. Stems in the same bucket keep
+	 * their insertion order.
+	 * 
+	 * @param stems stems that <code>stemList</code> is numbered in.
+	 * @param stemList numbers of stems to be filtered.
+	 * @param firstPos position of the first letter of stems.
+	 * @param buckets distinct positions of the second letter of stems, see {@link #NEIGHBOUR_BUCKETS}.
+	 * @param from index of the first bucket to be appended.
+	 * @param to index after the last bucket to be appended.
+	 * @param ordered list that ordered stem numbers are appended to.
+	 * @param metrics metrics that number of stems in each bucket is counted in, or <code>null</code>.
+	 */
+	private static void orderByBucket(StemIndex stems, IntList stemList, int firstPos, int [] buckets, int from, int to, IntList ordered, LemmaMetrics metrics){
+		for (int b = from; b < to; b++) {
+			int start = ordered.size();
+			for (int i = 0; i < stemList.size(); i++) {
+				int stem = stemList.get(i);
+				if (TurkishAlphabet.getPosition(stems.letter(stem, 0)) == firstPos && TurkishAlphabet.getPosition(stems.letter(stem, 1)) == buckets[b]){
+					ordered.add(stem);
 				}
-				break;
-
-			case TurkishLemmatizer.UNLU_DUSMESI_KONTROLU:
-				if (stem.getStem().length() > 3){
-					String ltc = stem.getStem().substring(stem.getStem().length()-3, stem.getStem().length());
-					if (ltc.indexOf('i') > 0 || ltc.indexOf('ı') > 0 || ltc.indexOf('u') > 0 || ltc.indexOf('ü') > 0){
-						m1 = Pattern.compile(stem.getUnluDusmusHali()).matcher(word);
-						if (m1.find() && m1.start() == 0){
-							if (longest.length() < stem.getStem().length()){
-								longest = stem.getStem();
-							}
-						}
-					}
-				}
-				break;
-
-			case TurkishLemmatizer.UNSUZ_DUSMESI_KONTROLU:
-				m1 = Pattern.compile(stem.getUnsuzDusmeliHali()).matcher(word);
-				if (m1.find() && m1.start() == 0){
-					if (longest.length() < stem.getStem().length()){
-						longest = stem.getStem();
-					}
+			}
+			ordered.sort(start, ordered.size());
+			if (metrics != null){
+				metrics.recordBucket(ordered.size() - start);
+			}
+		}
+	}
+
+	/**
+	 * Finds longest matched stem of each control in {@link #PREFIX_CONTROLS} in one pass over <code>stemList</code>.
+	 * Each stem is compared with word once for all controls that it can still win, see {@link StemIndex#matchingControls(int, CharSequence, int)}.
+	 * For every control, the first stem of the greatest length that matches is taken, as {@link #findLongestMatchedStem(StemIndex, IntList, CharSequence, Control)} does.
+	 * 
+	 * @param stemList numbers of stems to be scanned.
+	 * @param softenedEnd only stems before this index are checked for {@link Control#UNSUZ_YUMUSAMA_KONTROLU}.
+	 * @param word word to be found
+	 * @param workspace number of longest matched stem of a control is written to <code>matched</code> of workspace at
+	 * ordinal of control, or <code>NO_STEM</code> if no stem matches.
+	 */
+	private static void findLongestMatchedStems(IntList stemList, int softenedEnd, CharSequence word, Workspace workspace){
+		StemIndex stems = workspace.stems;
+		int [] matched = workspace.matched;
+		int [] longestLength = workspace.longestLength;
+		Arrays.fill(matched, NO_STEM);
+		Arrays.fill(longestLength, 0);
+
+		for (int i = 0; i < stemList.size(); i++) {
+			int stem = stemList.get(i);
+			int length = stems.length(stem);
+			int controls = 0;
+			for (Control control : PREFIX_CONTROLS) {
+				if (longestLength[control.ordinal()] < length){
+					controls |= control.bit();
 				}
-				break;
-
-			case TurkishLemmatizer.PEKISTIRME_KONTROLU:
-				m1 = stem.getPattern().matcher(word);
-				if (m1.find() && (m1.end() == stem.getStem().length() + m1.start())){
-					if (longest.length() < stem.getStem().length()){
-						longest = stem.getStem();
-					}
+			}
+			if (i >= softenedEnd){
+				controls &= ~Control.UNSUZ_YUMUSAMA_KONTROLU.bit();
+			}
+			if (controls == 0){
+				continue;
+			}
+
+			controls = stems.matchingControls(stem, word, controls);
+			for (Control control : PREFIX_CONTROLS) {
+				if ((controls & control.bit()) != 0){
+					matched[control.ordinal()] = stem;
+					longestLength[control.ordinal()] = length;
 				}
-				break;
-				
+			}
+		}
+	}
+
+	/**
+	 * Adds candidate found by a control and records result of control.
+	 */
+	private static void addCandidate(Workspace workspace, Control control, int candidate){
+		if (candidate != NO_STEM){
+			workspace.trace(control, true);
+			workspace.candidates.add(candidate);
+		}else{
+			workspace.trace(control, false);
+		}
+	}
+
+	/**
+	 * Finds longest matched stem of <code>word</code> in given <code>stemList</code> by considering given <code>control</code> variable.
+	 * 
+	 * @param stems stems that <code>stemList</code> is numbered in.
+	 * @param stemList numbers of stems to be scanned.
+	 * @param word word to be found
+	 * @param control control to be applied. {@link Control#UNLU_DEGISIMI} does not match any stem.
+	 * 
+	 * @return number of longest matched stem. If stem cannot be found <code>NO_STEM</code> returns.
+	 */
+	private static int findLongestMatchedStem(StemIndex stems, IntList stemList, CharSequence word, Control control){
+		int longest = -1;
+		int longestLength = 0;
+
+		for (int i = 0; i < stemList.size(); i++) {
+			int stem = stemList.get(i);
+			int length = stems.length(stem);
+			if (longestLength >= length){
+				continue;
+			}
+			if (stems.matches(stem, word, control)){
+				longest = stem;
+				longestLength = length;
 			}
 		}
 		return longest;
@@ -427,7 +1122,8 @@ public class TurkishLemmatizer {
 	 * @return <code>true</code> if lemmatization process is successful.
 	 */
 	public boolean isLemmatizationSuccessful(){
-		return this.stemFound;
+		LemmaResult result = lastResult.get();
+		return result != null && result.isSuccessful();
 	}
 
 	/**
@@ -436,26 +1132,82 @@ public class TurkishLemmatizer {
 	 * @return trace stack string.
 	 */
 	public String getTrace(){
-		String message = "Trace: ";
-		while(!trace.isEmpty()){
-			Tracer t = trace.pop();
-			message += "[" + t.getControlName() + "=" + t.getResult() + "] <- ";
-		}
-		return message;
+		LemmaResult result = lastResult.get();
+		return result == null ? "Trace: " : result.getTrace();
 	}
 
 	/**
 	 * @return list of all stems found in given controls.
 	 */
 	public String [] getAllCandidates(){
-		Object [] stems = new HashSet<String>(this.candidates).toArray();
-		String [] candidates = new String[stems.length];
-		for (int i = 0; i < stems.length; i++) {
-			candidates[i] = stems[i].toString();
-		}
-
-		return candidates;
+		LemmaResult result = lastResult.get();
+		return result == null ? new String[0] : result.getCandidates();
 	}
 
 
+	/**
+	 * Working buffers of lemmatization. A workspace is used by one thread at a time and can be reused for many words.
+	 */
+	private static class Workspace{
+		private final IntList prefixCandidates = new IntList();
+		private final IntList list = new IntList();
+		private final IntList contained = new IntList();
+		private final IntList containedList = new IntList();
+		private final IntList candidates = new IntList();
+		private final int [] matched = new int[Control.values().length];
+		private final int [] longestLength = new int[Control.values().length];
+		private final CharSlice slice = new CharSlice();
+		private final boolean tracing;
+		/**
+		 * Version of stems that word is lemmatized with.
+		 */
+		private StemIndex stems;
+		/**
+		 * Applied controls and their results, see {@link LemmaResult#trace(int, Control, boolean)}.
+		 */
+		private int trace;
+		private boolean stemFound;
+		/**
+		 * Status of a word that cannot be lemmatized, otherwise <code>null</code>.
+		 */
+		private LemmaResult.Status status;
+		/**
+		 * Number of lemma stem, or <code>NO_STEM</code> if lemma is word itself.
+		 */
+		private int lemma;
+		/**
+		 * Lemma that is not in stem dictionary, or <code>null</code>.
+		 */
+		private String fixedLemma;
+
+		/**
+		 * @param recordTrace pass <code>true</code> to record applied controls.
+		 */
+		private Workspace(boolean recordTrace) {
+			this.tracing = recordTrace;
+		}
+
+		/**
+		 * Clears buffers for next word.
+		 */
+		private void reset(){
+			prefixCandidates.clear();
+			contained.clear();
+			candidates.clear();
+			trace = 0;
+			stemFound = false;
+			status = null;
+			lemma = NO_STEM;
+			fixedLemma = null;
+		}
+
+		/**
+		 * Records result of a control if trace is enabled.
+		 */
+		private void trace(Control control, boolean result){
+			if (tracing){
+				trace = LemmaResult.trace(trace, control, result);
+			}
+		}
+	}
 }
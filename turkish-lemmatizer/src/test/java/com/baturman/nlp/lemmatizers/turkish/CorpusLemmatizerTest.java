@@ -0,0 +1,115 @@
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for parallel corpus lemmatization.
+ */
+public class CorpusLemmatizerTest extends TestCase{
+
+	private static final String [] STEMS = { "kitap", "kulak", "bekle", "oğul", "sağlam", "baş", "başbakan"};
+	private static final String [] WORDS = { "Kitabım", "kulağım", "bekliyor", "oğlum", "sapasağlam", "başından", "başbakanın", "x", "3.", "kitap,"};
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName name of the test case
+	 */
+	public CorpusLemmatizerTest( String testName )
+	{
+		super( testName );
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite()
+	{
+		return new TestSuite( CorpusLemmatizerTest.class );
+	}
+
+	/**
+	 * Output has one line for each token in corpus order, whatever the chunk size is if tokens fit in a chunk.
+	 */
+	public void testCorpus() throws Exception{
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		for (String stem : STEMS) {
+			tl.addStem(stem);
+		}
+		tl.freeze();
+
+		StringBuilder corpus = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			String token = WORDS[i % WORDS.length];
+			corpus.append(token).append(i % 7 == 0 ? "\n" : "  ");
+			String word = token.toLowerCase(new Locale("tr", "TR"));
+			String lemma = token;
+			if (!token.equals("x") && !token.equals("3.") && !token.equals("kitap,")){
+				lemma = tl.lemmatize(word);
+			}
+			expected.append(token).append('\t').append(lemma).append('\n');
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int chunkSize : new int[]{ 10, 17, 100, CorpusLemmatizer.DEFAULT_CHUNK_SIZE}) {
+				StringWriter out = new StringWriter();
+				new CorpusLemmatizer(tl, pool, chunkSize).lemmatize(new StringReader(corpus.toString()), out);
+				assertEquals(expected.toString(), out.toString());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * A token that is longer than chunk size is cut, so no more than a chunk is kept for a token.
+	 */
+	public void testLongToken() throws Exception{
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		tl.addStem("kitap");
+		tl.freeze();
+
+		StringBuilder corpus = new StringBuilder();
+		for (int i = 0; i < 20; i++) {
+			corpus.append("abcdefgh");
+		}
+		corpus.append("ij kitabı\n");
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 20; i++) {
+			expected.append("abcdefgh\tabcdefgh\n");
+		}
+		expected.append("ij\tij\nkitabı\tkitap\n");
+
+		StringWriter out = new StringWriter();
+		new CorpusLemmatizer(tl, ForkJoinPool.commonPool(), 8).lemmatize(new StringReader(corpus.toString()), out);
+		assertEquals(expected.toString(), out.toString());
+	}
+
+	/**
+	 * Tokens are normalized with {@link LetterConverter} rules, as {@link TextLemmatizer} normalizes them.
+	 */
+	public void testConvertedLetters() throws Exception{
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		tl.addStem("hala");
+		tl.addStem("rüzgar");
+		tl.freeze();
+
+		String corpus = "hâlâ Rüzgârı\n";
+		StringWriter out = new StringWriter();
+		new CorpusLemmatizer(tl).lemmatize(new StringReader(corpus), out);
+		assertEquals("hâlâ\thala\nRüzgârı\trüzgar\n", out.toString());
+
+		TextLemmatizer text = new TextLemmatizer(tl, new LetterConverter(true), TextLemmatizer.InvalidTokens.PASS_THROUGH);
+		assertEquals(Arrays.asList("hala", "rüzgar"), text.lemmatize(corpus));
+	}
+}
@@ -0,0 +1,162 @@
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for word list loading and binary snapshots.
+ */
+public class DictionaryLoaderTest extends TestCase{
+
+	private static final String WORD_LIST = "# stems\n"
+			+ "kitap\tNOUN\n"
+			+ "bekle\tVERB\n"
+			+ "\n"
+			+ "oğul NOUN\n"
+			+ "sağlam\n";
+
+	private static final String [] WORDS = { "kitabı", "bekliyor", "oğlum", "sapasağlam"};
+	private static final String [] STEMS = { "kitap", "bekle", "oğul", "sağlam"};
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName name of the test case
+	 */
+	public DictionaryLoaderTest( String testName )
+	{
+		super( testName );
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite()
+	{
+		return new TestSuite( DictionaryLoaderTest.class );
+	}
+
+	private TurkishLemmatizer loadWordList() throws Exception{
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		int count = DictionaryLoader.loadWordList(tl, new ByteArrayInputStream(WORD_LIST.getBytes("UTF-8")));
+		assertEquals(4, count);
+		return tl;
+	}
+
+	/**
+	 * Stems and their types are read from word list.
+	 */
+	public void testWordList() throws Exception{
+		TurkishLemmatizer tl = loadWordList();
+		for (int i = 0; i < WORDS.length; i++) {
+			assertEquals(STEMS[i], tl.lemmatize(WORDS[i]));
+		}
+
+		IntList stems = new IntList();
+		tl.getStemIndex().collectPrefixCandidates("kitap", stems);
+		assertEquals(1, stems.size());
+		assertEquals("NOUN", tl.getStemIndex().getType(stems.get(0)));
+	}
+
+	/**
+	 * A lemmatizer opened from a snapshot gives the same results as the lemmatizer it was written from.
+	 */
+	public void testSnapshot() throws Exception{
+		TurkishLemmatizer tl = loadWordList();
+		File file = File.createTempFile("stems", ".snapshot");
+		try {
+			DictionaryLoader.writeSnapshot(tl, file.toPath());
+			TurkishLemmatizer snapshot = DictionaryLoader.openSnapshot(file.toPath());
+			assertTrue(snapshot.isFrozen());
+			for (int i = 0; i < WORDS.length; i++) {
+				LemmaResult expected = tl.lemmatizeFull(WORDS[i], true);
+				LemmaResult result = snapshot.lemmatizeFull(WORDS[i], true);
+				assertEquals(expected.getLemma(), result.getLemma());
+				assertEquals(expected.getTrace(), result.getTrace());
+			}
+
+			IntList stems = new IntList();
+			snapshot.getStemIndex().collectPrefixCandidates("bekle", stems);
+			assertEquals(1, stems.size());
+			assertEquals("bekle", snapshot.getStemIndex().getStem(stems.get(0)));
+			assertEquals("VERB", snapshot.getStemIndex().getType(stems.get(0)));
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * A snapshot written after a stem is removed holds live stems only and gives the same lemmas.
+	 */
+	public void testSnapshotAfterRemoval() throws Exception{
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		for (String stem : new String[]{ "kitap", "kalem", "armut", "ayak", "renk"}) {
+			tl.addStem(stem);
+		}
+		assertTrue(tl.removeStem("kalem"));
+
+		String [] words = { "kitabı", "kalemi", "armudu", "ayağı", "rengi"};
+		File file = File.createTempFile("stems", ".snapshot");
+		try {
+			DictionaryLoader.writeSnapshot(tl, file.toPath());
+			TurkishLemmatizer snapshot = DictionaryLoader.openSnapshot(file.toPath());
+			assertEquals(4, snapshot.size());
+			assertFalse(snapshot.containsStem("kalem"));
+			for (String word : words) {
+				assertEquals(tl.lemmatize(word), snapshot.lemmatize(word));
+			}
+			assertEquals("kalemi", snapshot.lemmatize("kalemi"));
+			assertEquals("renk", snapshot.lemmatize("rengi"));
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Diff of two word lists turns a dictionary loaded from the first list into the second one.
+	 */
+	public void testDiff() throws Exception{
+		TurkishLemmatizer tl = loadWordList();
+		File oldList = File.createTempFile("stems", ".txt");
+		File newList = File.createTempFile("stems", ".txt");
+		try {
+			Files.write(oldList.toPath(), WORD_LIST.getBytes("UTF-8"));
+			Files.write(newList.toPath(), "kitap\tNOUN\nbekle\tNOUN\noğul\tNOUN\nkalem\nkalem\n".getBytes("UTF-8"));
+
+			ByteArrayOutputStream diff = new ByteArrayOutputStream();
+			assertEquals(4, DictionaryLoader.writeDiff(oldList.toPath(), newList.toPath(), diff));
+			assertEquals("-bekle\n-sağlam\n+bekle\tNOUN\n+kalem\n", diff.toString("UTF-8"));
+
+			int version = tl.getDictionaryVersion();
+			assertEquals(4, DictionaryLoader.applyDiff(tl, new ByteArrayInputStream(diff.toByteArray())));
+			assertEquals(version + 1, tl.getDictionaryVersion());
+			assertEquals(4, tl.size());
+			assertFalse(tl.containsStem("sağlam"));
+			assertTrue(tl.containsStem("kalem"));
+			assertEquals("sapasağlam", tl.lemmatize("sapasağlam"));
+			assertEquals("bekle", tl.lemmatize("bekliyor"));
+
+			IntList stems = new IntList();
+			tl.getStemIndex().collectPrefixCandidates("bekle", stems);
+			assertEquals(1, stems.size());
+			assertEquals("NOUN", tl.getStemIndex().getType(stems.get(0)));
+		} finally {
+			oldList.delete();
+			newList.delete();
+		}
+
+		try {
+			DictionaryLoader.applyDiff(tl, new ByteArrayInputStream("kalem\n".getBytes("UTF-8")));
+			fail("Line without + or - is not a diff.");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+}
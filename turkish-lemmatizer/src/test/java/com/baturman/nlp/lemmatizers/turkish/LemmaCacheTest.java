@@ -0,0 +1,74 @@
+package com.baturman.nlp.lemmatizers.turkish;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for caching lemmatization results.
+ */
+public class LemmaCacheTest extends TestCase{
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName name of the test case
+	 */
+	public LemmaCacheTest( String testName )
+	{
+		super( testName );
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite()
+	{
+		return new TestSuite( LemmaCacheTest.class );
+	}
+
+	/**
+	 * Cached results are returned for repeated words and cache is invalidated when a stem is added.
+	 */
+	public void testCache() throws Exception{
+		for (LemmaCache.Policy policy : LemmaCache.Policy.values()) {
+			TurkishLemmatizer tl = new TurkishLemmatizer();
+			tl.addStem("kitap");
+			LemmaCache cache = new LemmaCache(100, policy);
+			tl.setCache(cache);
+
+			LemmaResult first = tl.lemmatizeFull("kitabım");
+			assertSame(first, tl.lemmatizeFull("kitabım"));
+			assertEquals("kitap", tl.lemmatize("kitabım"));
+			assertEquals("kitap", tl.lemmatizeAll(new String[]{ "kitabım"})[0]);
+			assertEquals(first.getTrace(), tl.getTrace());
+			assertEquals(1, cache.getMissCount());
+			assertEquals(3, cache.getHitCount());
+			assertEquals(1, cache.size());
+
+			tl.addStem("kulak");
+			assertEquals(0, cache.size());
+			assertEquals("kulak", tl.lemmatize("kulağım"));
+			assertEquals(2, cache.getMissCount());
+		}
+	}
+
+	/**
+	 * Cache does not grow beyond its maximum size.
+	 */
+	public void testEviction() throws Exception{
+		for (LemmaCache.Policy policy : LemmaCache.Policy.values()) {
+			TurkishLemmatizer tl = new TurkishLemmatizer();
+			tl.addStem("kitap");
+			LemmaCache cache = new LemmaCache(50, policy);
+			tl.setCache(cache);
+
+			// 200 distinct words
+			for (int i = 0; i < 200; i++) {
+				tl.lemmatize("kitab" + TurkishAlphabet.getLetter(i / 20) + TurkishAlphabet.getLetter(i % 20));
+			}
+			assertTrue(cache.size() <= 50);
+			assertEquals(cache.getMissCount() - cache.size(), cache.getEvictionCount());
+		}
+	}
+}
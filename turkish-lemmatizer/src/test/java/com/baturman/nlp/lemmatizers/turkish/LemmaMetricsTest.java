@@ -0,0 +1,75 @@
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for lemmatization metrics.
+ */
+public class LemmaMetricsTest extends TestCase{
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName name of the test case
+	 */
+	public LemmaMetricsTest( String testName )
+	{
+		super( testName );
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite()
+	{
+		return new TestSuite( LemmaMetricsTest.class );
+	}
+
+	/**
+	 * Words, successes and winning controls are counted, and metrics can be read through JMX.
+	 */
+	public void testMetrics() throws Exception{
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		for (String stem : new String[]{ "kitap", "ev", "oğul"}) {
+			tl.addStem(stem);
+		}
+		tl.freeze();
+		LemmaMetrics metrics = new LemmaMetrics();
+		tl.setMetrics(metrics);
+
+		assertEquals("ev", tl.lemmatize("evler"));
+		assertEquals("kitap", tl.lemmatize("kitabı"));
+		assertEquals("oğul", tl.lemmatize("oğlum"));
+		assertEquals("sen", tl.lemmatize("sana"));
+		assertEquals("zzz", tl.lemmatize("zzz"));
+		assertEquals(LemmaResult.Status.TOO_SHORT, tl.tryLemmatize("a").getStatus());
+
+		LemmaMetrics.Snapshot snapshot = metrics.snapshot();
+		assertEquals(6, snapshot.getCallCount());
+		assertEquals(4, snapshot.getSuccessCount());
+		assertEquals(1, snapshot.getRejectedCount());
+		assertEquals(1, snapshot.getWins(Control.EN_UZUN_KOK_KONTROLU));
+		assertEquals(1, snapshot.getWins(Control.UNSUZ_YUMUSAMA_KONTROLU));
+		assertEquals(1, snapshot.getWins(Control.UNLU_DUSMESI_KONTROLU));
+		assertEquals(1, snapshot.getWins(Control.UNLU_DEGISIMI));
+		assertTrue(snapshot.getBucketCount() > 0);
+		assertTrue(snapshot.getLatencyP99Nanos() >= snapshot.getLatencyP50Nanos());
+
+		metrics.register("test");
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			assertEquals(6L, server.getAttribute(metrics.getObjectName(), "CallCount"));
+			server.invoke(metrics.getObjectName(), "reset", null, null);
+			assertEquals(0, metrics.snapshot().getCallCount());
+		} finally {
+			metrics.unregister();
+		}
+		assertNull(metrics.getObjectName());
+	}
+}
@@ -0,0 +1,188 @@
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for lemmatization server.
+ */
+public class LemmaServerTest extends TestCase{
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName name of the test case
+	 */
+	public LemmaServerTest( String testName )
+	{
+		super( testName );
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite()
+	{
+		return new TestSuite( LemmaServerTest.class );
+	}
+
+	/**
+	 * Lines and JSON arrays are lemmatized and counted in statistics.
+	 */
+	public void testServer() throws Exception{
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		for (String stem : new String[]{ "kitap", "ev", "oğul"}) {
+			tl.addStem(stem);
+		}
+		tl.freeze();
+
+		LemmaServer server = new LemmaServer(tl, 0, 2, 4, 1000);
+		server.start();
+		try {
+			String base = "http://127.0.0.1:" + server.getPort();
+			assertEquals("Kitabı\tkitap\noğlum\toğul\nx\tx\n123\t123\n",
+					post(base + "/lemmatize", "text/plain", "Kitabı\noğlum\n\nx\n123\n"));
+			assertEquals("[\"ev\",\"kitap\",\"a\\\"b\"]",
+					post(base + "/lemmatize", "application/json", "[ \"evler\", \"kitaplar\", \"a\\\"b\" ]"));
+
+			HttpURLConnection bad = (HttpURLConnection) new URL(base + "/lemmatize").openConnection();
+			bad.setDoOutput(true);
+			bad.setRequestProperty("Content-Type", "application/json");
+			bad.getOutputStream().write("[\"ev\"".getBytes(StandardCharsets.UTF_8));
+			assertEquals(400, bad.getResponseCode());
+
+			String stats = read(new URL(base + "/stats").openStream());
+			assertTrue(stats, stats.startsWith("requests=2 tokens=7 "));
+		} finally {
+			server.stop();
+		}
+	}
+
+	/**
+	 * Requests that wait for a batch when server is stopped are answered or fail, and no thread is left waiting.
+	 */
+	public void testStopWithRequestsInFlight() throws Exception{
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		tl.addStem("kitap");
+		tl.freeze();
+
+		// Workers wait long for batches to fill
+		final LemmaServer server = new LemmaServer(tl, 0, 1, 1000, 5000000);
+		server.start();
+		final String url = "http://127.0.0.1:" + server.getPort() + "/lemmatize";
+		Thread [] clients = new Thread[4];
+		for (int t = 0; t < clients.length; t++) {
+			clients[t] = new Thread(){
+				public void run() {
+					try {
+						post(url, "text/plain", "kitabı\n");
+					} catch (Throwable e) {
+						// Connection may be closed by stop
+					}
+				}
+			};
+			clients[t].start();
+		}
+		Thread.sleep(300);
+
+		server.stop();
+		for (int t = 0; t < clients.length; t++) {
+			clients[t].join(5000);
+			assertFalse(clients[t].isAlive());
+		}
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!server.isTerminated() && System.currentTimeMillis() < deadline){
+			Thread.sleep(10);
+		}
+		assertTrue(server.isTerminated());
+	}
+
+	/**
+	 * Requests that no handler thread can take are refused with 503 instead of blocking the accepting thread.
+	 */
+	public void testRejectWhenHandlersAreBusy() throws Exception{
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		tl.addStem("kitap");
+		tl.freeze();
+
+		// Four handlers and one queued request wait two seconds for a batch to fill
+		LemmaServer server = new LemmaServer(tl, 0, 1, 1000, 2000000, 1);
+		server.start();
+		try {
+			final String url = "http://127.0.0.1:" + server.getPort() + "/lemmatize";
+			final int [] status = new int[10];
+			Thread [] clients = new Thread[status.length];
+			for (int t = 0; t < clients.length; t++) {
+				final int c = t;
+				clients[t] = new Thread(){
+					public void run() {
+						try {
+							status[c] = status(url, "text/plain", "kitabı\n");
+						} catch (Throwable e) {
+							status[c] = -1;
+						}
+					}
+				};
+				clients[t].start();
+			}
+			int ok = 0;
+			int refused = 0;
+			for (int t = 0; t < clients.length; t++) {
+				clients[t].join(10000);
+				assertFalse(clients[t].isAlive());
+				if (status[t] == 200){
+					ok++;
+				}else if (status[t] == 503){
+					refused++;
+				}
+			}
+			assertEquals(clients.length, ok + refused);
+			assertTrue("Some requests should be refused", refused > 0);
+			assertEquals(refused, server.getRejectedCount());
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static String post(String url, String contentType, String body) throws Exception{
+		HttpURLConnection connection = open(url, contentType, body);
+		assertEquals(200, connection.getResponseCode());
+		return read(connection.getInputStream());
+	}
+
+	private static int status(String url, String contentType, String body) throws Exception{
+		HttpURLConnection connection = open(url, contentType, body);
+		int status = connection.getResponseCode();
+		read(status == 200 ? connection.getInputStream() : connection.getErrorStream());
+		return status;
+	}
+
+	private static HttpURLConnection open(String url, String contentType, String body) throws Exception{
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", contentType);
+		OutputStream out = connection.getOutputStream();
+		out.write(body.getBytes(StandardCharsets.UTF_8));
+		out.close();
+		return connection;
+	}
+
+	private static String read(InputStream in) throws Exception{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte [] buffer = new byte[1024];
+		int n;
+		while ((n = in.read(buffer)) != -1){
+			out.write(buffer, 0, n);
+		}
+		in.close();
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
@@ -1,5 +1,7 @@
 package com.baturman.nlp.lemmatizers.turkish;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
@@ -128,6 +130,384 @@ public class LemmatizerTest extends TestCase{
 		}
 	}
 
+
+	/**
+	 * A word may start with more than one stem. Longest stem is returned and the others are kept as candidates.
+	 * 
+	 * For example:
+	 * 
+	 * stems					word
+	 * ------------------		--------------	
+	 * baş, başbakan			başbakanın
+	 * resim, resmi				resminde
+	 * ye, yeşil				yemyeşil
+	 * 
+	 */
+	public void testOverlappingStems(){
+		try {
+			tl = new TurkishLemmatizer();
+			tl.addStem("baş");
+			tl.addStem("başbakan");
+			tl.addStem("resim");
+			tl.addStem("resmi");
+			tl.addStem("ye");
+			tl.addStem("yeşil");
+			
+			assertEquals("başbakan", tl.lemmatize("başbakanın"));
+			assertEquals("baş", tl.lemmatize("başından"));
+			
+			assertEquals("resmi", tl.lemmatize("resminde"));
+			assertEquals(2, tl.getAllCandidates().length);
+			
+			assertEquals("ye", tl.lemmatize("yemyeşil"));
+			assertEquals(2, tl.getAllCandidates().length);
+			
+		} catch (NotAcceptableCharacterException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Stems are packed into one pool. The same lemma instance is returned for every word of a stem.
+	 */
+	public void testPackedStems() throws Exception{
+		tl = new TurkishLemmatizer();
+		tl.addStem("kitap", "İSİM");
+		tl.addStem("kalem");
+		tl.addStem("kitaplık", "İSİM");
+
+		StemIndex stems = tl.getStemIndex();
+		assertEquals(3, stems.size());
+		assertEquals("kitaplık", stems.getStem(2));
+		assertEquals(5, stems.length(1));
+		assertEquals('m', stems.letter(1, 4));
+		assertEquals("İSİM", stems.getType(0));
+		assertEquals("N/A", stems.getType(1));
+		assertSame(tl.lemmatize("kitabı"), tl.lemmatize("kitapta"));
+	}
+
+	/**
+	 * A frozen lemmatizer is shared by several threads. Every thread should get the same results.
+	 */
+	public void testSharedLemmatizer() throws Exception{
+		final String [] words = { "oğlum", "burnunda", "kitabı", "ağacı", "armudu", "ayağı", "rengi"};
+		final String [] stems = { "oğul", "burun", "kitap", "ağaç", "armut", "ayak", "renk"};
+		
+		tl = new TurkishLemmatizer();
+		for (int i = 0; i < stems.length; i++) {
+			tl.addStem(stems[i]);
+		}
+		tl.freeze();
+		
+		try {
+			tl.addStem("karın");
+			fail("Frozen dictionary should not accept stems.");
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+		
+		final boolean [] failed = new boolean[1];
+		Thread [] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(){
+				public void run() {
+					try {
+						for (int n = 0; n < 500; n++) {
+							for (int i = 0; i < words.length; i++) {
+								LemmaResult result = tl.lemmatizeFull(words[i]);
+								if (!stems[i].equals(result.getLemma()) || !result.isSuccessful()){
+									failed[0] = true;
+								}
+							}
+						}
+					} catch (NotAcceptableCharacterException e) {
+						failed[0] = true;
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+		}
+		assertFalse(failed[0]);
+		
+		LemmaResult result = tl.lemmatizeFull("kitabı", true);
+		assertEquals("kitabı", result.getWord());
+		assertEquals(1, result.getCandidates().length);
+		assertEquals(6, result.getAppliedControls().length);
+		assertEquals("EN_UZUN_KOK_KONTROLU", result.getAppliedControls()[5]);
+		assertFalse(result.getControlResults()[5]);
+	}
+
+	/**
+	 * Stems are added and removed in batches. Each batch is a new dictionary version.
+	 */
+	public void testStemBatch() throws Exception{
+		tl = new TurkishLemmatizer();
+		int version = tl.getDictionaryVersion();
+		tl.addStem("kitap");
+		assertEquals(version + 1, tl.getDictionaryVersion());
+
+		StemBatch batch = tl.newBatch();
+		batch.addStem("kitaplık");
+		batch.removeStem("kitap");
+		assertEquals(2, batch.size());
+		assertEquals("kitap", tl.lemmatize("kitaplığı"));
+		assertEquals(version + 2, batch.commit());
+		assertEquals(0, batch.size());
+		assertEquals("kitaplık", tl.lemmatize("kitaplığı"));
+		assertEquals("kitabı", tl.lemmatize("kitabı"));
+		assertEquals(1, tl.getStemIndex().liveSize());
+
+		batch.addStem("ev");
+		batch.removeStem("ev");
+		batch.commit();
+		assertEquals("evler", tl.lemmatize("evler"));
+
+		tl.freeze();
+		batch.addStem("ev");
+		try {
+			batch.commit();
+			fail("Frozen dictionary should not accept stems.");
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+	}
+
+	/**
+	 * A stem is kept once and can be removed.
+	 */
+	public void testRemoveStem() throws Exception{
+		tl = new TurkishLemmatizer();
+		assertTrue(tl.addStemIfAbsent("kitap"));
+		assertFalse(tl.addStemIfAbsent("kitap", "İSİM"));
+		tl.addStem("kitap");
+		assertTrue(tl.addStemIfAbsent("kalem"));
+		assertEquals(2, tl.size());
+		assertTrue(tl.containsStem("kitap"));
+		assertFalse(tl.containsStem("kitaplık"));
+		assertFalse(tl.containsStem("x"));
+
+		IntList stems = new IntList();
+		tl.getStemIndex().collectPrefixCandidates("kitap", stems);
+		assertEquals(1, stems.size());
+		assertEquals("N/A", tl.getStemIndex().getType(stems.get(0)));
+
+		assertTrue(tl.removeStem("kitap"));
+		assertFalse(tl.removeStem("kitap"));
+		assertFalse(tl.containsStem("kitap"));
+		assertEquals(1, tl.size());
+		assertEquals("kitabı", tl.lemmatize("kitabı"));
+
+		assertTrue(tl.addStemIfAbsent("kitap"));
+		assertEquals("kitap", tl.lemmatize("kitabı"));
+		assertEquals(2, tl.size());
+	}
+
+	/**
+	 * Stems are changed while other threads lemmatize. Every word should see either all changes of a batch or none of them.
+	 */
+	public void testUpdatesWhileLemmatizing() throws Exception{
+		tl = new TurkishLemmatizer();
+		tl.addStem("kitap");
+
+		final boolean [] failed = new boolean[1];
+		final AtomicBoolean done = new AtomicBoolean();
+		Thread [] threads = new Thread[3];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(){
+				public void run() {
+					try {
+						while (!done.get()){
+							// Either kitap or kitaplık is in dictionary, never both or none
+							LemmaResult result = tl.lemmatizeFull("kitaplığı");
+							if (!result.isSuccessful() || result.getCandidates().length != 1){
+								failed[0] = true;
+							}
+						}
+					} catch (NotAcceptableCharacterException e) {
+						failed[0] = true;
+					}
+				}
+			};
+			threads[t].start();
+		}
+
+		StemBatch batch = tl.newBatch();
+		for (int n = 0; n < 2000; n++) {
+			batch.removeStem(n % 2 == 0 ? "kitap" : "kitaplık");
+			batch.addStem(n % 2 == 0 ? "kitaplık" : "kitap");
+			batch.commit();
+		}
+		done.set(true);
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+		}
+		assertFalse(failed[0]);
+		assertEquals("kitap", tl.lemmatize("kitaplığı"));
+		assertEquals(1, tl.getStemIndex().liveSize());
+	}
+
+	/**
+	 * Trace is recorded only when it is enabled for the lemmatizer or for the call.
+	 */
+	public void testTrace() throws Exception{
+		tl = new TurkishLemmatizer();
+		tl.addStem("kitap");
+
+		assertEquals(0, tl.lemmatizeFull("kitabı").getControls().length);
+		assertEquals("kitap", tl.lemmatize("kitabı"));
+		assertEquals("Trace: ", tl.getTrace());
+
+		LemmaResult result = tl.lemmatizeFull("kitabı", true);
+		assertEquals(Control.UNSUZ_YUMUSAMA_KONTROLU, result.getControls()[0]);
+		assertEquals(Control.EN_UZUN_KOK_KONTROLU, result.getControls()[5]);
+		assertTrue(result.getResult(Control.UNSUZ_YUMUSAMA_KONTROLU));
+		assertFalse(result.getResult(Control.EN_UZUN_KOK_KONTROLU));
+		assertEquals("[EN_UZUN_KOK_KONTROLU=false] <- ", result.getTrace().substring(7, 39));
+
+		tl.setTracing(true);
+		tl.lemmatize("sana");
+		assertEquals("Trace: [UNLU_DEGISIMI=true] <- ", tl.getTrace());
+		assertEquals("UNLU_DEGISIMI", new Tracer(Control.UNLU_DEGISIMI, true).getControlName());
+	}
+
+	/**
+	 * Batch lemmatization gives the same results as lemmatizing words one by one.
+	 */
+	public void testBatch() throws Exception{
+		String [] words = { "oğlum", "burnunda", "kitabı", "ağacı", "armudu", "ayağı", "rengi", "sana", "kalem"};
+		
+		tl = new TurkishLemmatizer();
+		tl.addStem("oğul");
+		tl.addStem("burun");
+		tl.addStem("kitap");
+		tl.addStem("ağaç");
+		tl.addStem("armut");
+		tl.addStem("ayak");
+		tl.addStem("renk");
+		
+		String [] lemmas = tl.lemmatizeAll(words);
+		String [] listLemmas = tl.lemmatizeAll(java.util.Arrays.asList(words));
+		String [] streamLemmas = tl.lemmatizeAll(java.util.Arrays.stream(words));
+		LemmaResult [] results = tl.lemmatizeAllFull(words, true);
+		LemmaResult [] untraced = tl.lemmatizeAllFull(words, false);
+		assertEquals(words.length, lemmas.length);
+		for (int i = 0; i < words.length; i++) {
+			LemmaResult expected = tl.lemmatizeFull(words[i], true);
+			assertEquals(expected.getLemma(), lemmas[i]);
+			assertEquals(expected.getLemma(), listLemmas[i]);
+			assertEquals(expected.getLemma(), streamLemmas[i]);
+			assertEquals(expected.getTrace(), results[i].getTrace());
+			assertEquals(expected.getCandidates().length, untraced[i].getCandidates().length);
+			assertEquals(0, untraced[i].getAppliedControls().length);
+		}
+	}
+
+
+	/**
+	 * Words that cannot be lemmatized are reported by status instead of exceptions.
+	 */
+	public void testTryLemmatize() throws Exception{
+		tl = new TurkishLemmatizer();
+		tl.addStem("kitap");
+
+		assertEquals(LemmaResult.Status.STEM_FOUND, tl.tryLemmatize("kitabı").getStatus());
+		assertEquals("kitap", tl.tryLemmatize("kitabı").getLemma());
+		assertEquals(LemmaResult.Status.NO_STEM, tl.tryLemmatize("kalem").getStatus());
+		assertEquals(LemmaResult.Status.TOO_SHORT, tl.tryLemmatize("o").getStatus());
+		assertEquals(LemmaResult.Status.TOO_SHORT, tl.tryLemmatize("").getStatus());
+		assertEquals(LemmaResult.Status.NOT_ACCEPTABLE, tl.tryLemmatize("2013").getStatus());
+		assertEquals("2013", tl.tryLemmatize("2013").getLemma());
+
+		LemmaResult result = tl.tryLemmatize("İstanbul'da");
+		assertEquals(LemmaResult.Status.PROPER_NOUN, result.getStatus());
+		assertEquals("İstanbul", result.getLemma());
+		assertEquals("Ankara", tl.tryLemmatize("Ankara\u2019ya").getLemma());
+
+		assertEquals("kitap", tl.findLemma("kitabı").get());
+		assertFalse(tl.findLemma("kalem").isPresent());
+		assertFalse(tl.findLemma("x").isPresent());
+
+		try {
+			tl.lemmatize("o");
+			fail();
+		} catch (StringIndexOutOfBoundsException e) {
+		}
+		try {
+			tl.lemmatize("kitap'ı");
+			fail();
+		} catch (NotAcceptableCharacterException e) {
+		}
+	}
+
+	/**
+	 * Lemmas written to a sink are the same as lemmas returned as strings.
+	 */
+	public void testSink() throws Exception{
+		tl = new TurkishLemmatizer();
+		tl.addStem("kitap");
+		tl.addStem("oğul");
+		tl.addStem("sağlam");
+
+		char [] buffer = " kitabım oğlum sapasağlam kalem sana".toCharArray();
+		StringBuilder sink = new StringBuilder();
+		int start = 1;
+		for (int i = 1; i <= buffer.length; i++) {
+			if (i < buffer.length && buffer[i] != ' '){
+				continue;
+			}
+			String word = new String(buffer, start, i - start);
+			sink.setLength(0);
+			LemmaResult.Status status = tl.lemmatize(buffer, start, i - start, sink);
+			assertEquals(tl.lemmatize(word), sink.toString());
+			assertEquals(tl.tryLemmatize(word).getStatus(), status);
+
+			sink.setLength(0);
+			assertEquals(status, tl.lemmatize(new StringBuilder(word), sink));
+			assertEquals(tl.lemmatize(word), sink.toString());
+			start = i + 1;
+		}
+
+		sink.setLength(0);
+		assertEquals(LemmaResult.Status.NOT_ACCEPTABLE, tl.lemmatize("x1", sink));
+		assertEquals("x1", sink.toString());
+	}
+
+	/**
+	 * Position lookup and validation agree with alphabet.
+	 */
+	public void testAlphabet(){
+		for (int i = 0; i < TurkishAlphabet.ALPHABET.length; i++) {
+			assertEquals(i, TurkishAlphabet.getPosition(TurkishAlphabet.getLetter(i)));
+		}
+		assertEquals(-1, TurkishAlphabet.getPosition('w'));
+		assertEquals(-1, TurkishAlphabet.getPosition('A'));
+		assertEquals(-1, TurkishAlphabet.getPosition('\u015E'));
+		assertEquals(-1, TurkishAlphabet.getPosition('\u20AC'));
+
+		assertEquals(-1, TurkishAlphabet.validate("ağaçlığı"));
+		assertEquals(3, TurkishAlphabet.validate("kitâp"));
+		assertEquals(0, TurkishAlphabet.validate("Kitap"));
+	}
+
+
+	/**
+	 * Letter converter replaces accented letters and returns unchanged strings as they are.
+	 */
+	public void testLetterConverter(){
+		LetterConverter converter = new LetterConverter(true);
+		assertEquals("hala", converter.convertString("hâlâ"));
+		assertEquals("rüzgarın Ayşe", converter.convertString("rüzgârın Âyşe"));
+		String plain = "kitaplarımızdan";
+		assertSame(plain, converter.convertString(plain));
+
+		converter.addRule(converter.new Rule(new int[]{ 226}, 101));
+		char [] buffer = "xhâlâx".toCharArray();
+		assertEquals(2, converter.convert(buffer, 1, 4));
+		assertEquals("xhelex", new String(buffer));
+	}
 	
 	
 	
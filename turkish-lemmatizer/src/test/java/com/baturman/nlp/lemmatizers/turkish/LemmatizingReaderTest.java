@@ -0,0 +1,102 @@
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for streaming lemmatization.
+ */
+public class LemmatizingReaderTest extends TestCase{
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName name of the test case
+	 */
+	public LemmatizingReaderTest( String testName )
+	{
+		super( testName );
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite()
+	{
+		return new TestSuite( LemmatizingReaderTest.class );
+	}
+
+	private static TurkishLemmatizer lemmatizer() throws Exception{
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		for (String stem : new String[]{ "kitap", "ev", "oğul", "hala"}) {
+			tl.addStem(stem);
+		}
+		tl.freeze();
+		return tl;
+	}
+
+	private static String readAll(Reader reader) throws IOException{
+		StringBuilder sb = new StringBuilder();
+		char [] buffer = new char[3];
+		int read;
+		while ((read = reader.read(buffer)) != -1){
+			sb.append(buffer, 0, read);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Tokens are replaced by lemmas as TextLemmatizer finds them, other characters are kept.
+	 */
+	public void testFilter() throws Exception{
+		TurkishLemmatizer tl = lemmatizer();
+		String text = "KİTABI, evlerde; Oğlum 42 x sana!\nkitaplar hâlâ";
+		String lemmatized = readAll(new LemmatizingReader(new StringReader(text), tl));
+		assertEquals("kitap, ev; oğul 42 x sen!\nkitap hala", lemmatized);
+
+		// Same lemmas as TextLemmatizer with default letter conversion rules
+		TextLemmatizer textLemmatizer = new TextLemmatizer(tl, new LetterConverter(true), TextLemmatizer.InvalidTokens.PASS_THROUGH);
+		assertEquals(textLemmatizer.lemmatize(text), Arrays.asList(lemmatized.split("[^\\p{L}\\p{N}]+")));
+
+		// Long tokens are copied as they are
+		assertEquals("kitaplarımızdakilerden ev", readAll(new LemmatizingReader(new StringReader("kitaplarımızdakilerden evler"), tl, null, 8)));
+	}
+
+	/**
+	 * A token is lemmatized as soon as the character after it arrives, without waiting for the end of stream.
+	 */
+	public void testStreaming() throws Exception{
+		final String [] parts = { "kitab", "ı ev", "ler\n"};
+		Reader slow = new Reader() {
+			private int next = 0;
+
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				if (next == parts.length){
+					throw new IOException("Stream should not be read past the first complete token.");
+				}
+				String part = parts[next++];
+				part.getChars(0, part.length(), cbuf, off);
+				return part.length();
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+
+		LemmatizingReader reader = new LemmatizingReader(slow, lemmatizer());
+		char [] buffer = new char[64];
+		int read = reader.read(buffer);
+		assertEquals("kitap ", new String(buffer, 0, read));
+		read = reader.read(buffer);
+		assertEquals("ev\n", new String(buffer, 0, read));
+		assertFalse(reader.ready());
+	}
+}
@@ -0,0 +1,56 @@
+package com.baturman.nlp.lemmatizers.turkish;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for suffix stripping.
+ */
+public class SuffixStripperTest extends TestCase{
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName name of the test case
+	 */
+	public SuffixStripperTest( String testName )
+	{
+		super( testName );
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite()
+	{
+		return new TestSuite( SuffixStripperTest.class );
+	}
+
+	/**
+	 * Suffixes are stripped by vowel harmony and stems are found at morpheme boundaries.
+	 */
+	public void testStrip() throws Exception{
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		for (String stem : new String[]{ "kitap", "kitaplık", "ev", "oğul", "burun", "araba", "kapı", "sokak", "ağaç", "masa"}) {
+			tl.addStem(stem);
+		}
+		tl.freeze();
+		SuffixStripper stripper = new SuffixStripper(tl);
+
+		String [] words = { "kitaplarımızdakilerden", "kitabım", "kitaplığı", "evinde", "evlerimizdekiler", "oğlum", "burnunda",
+				"arabalarla", "kapısı", "sokağa", "ağaçtan", "masadakini"};
+		String [] lemmas = { "kitap", "kitap", "kitaplık", "ev", "ev", "oğul", "burun",
+				"araba", "kapı", "sokak", "ağaç", "masa"};
+		for (int i = 0; i < words.length; i++) {
+			assertEquals(words[i], lemmas[i], stripper.lemmatize(words[i]));
+		}
+
+		// Suffixes that break vowel harmony are not stripped
+		assertFalse(stripper.findStem("evlar").isPresent());
+		assertFalse(stripper.findStem("kalem").isPresent());
+		assertFalse(stripper.findStem("x").isPresent());
+		assertEquals("kalem", stripper.lemmatize("kalem"));
+		assertEquals("sen", stripper.lemmatize("sana"));
+	}
+}
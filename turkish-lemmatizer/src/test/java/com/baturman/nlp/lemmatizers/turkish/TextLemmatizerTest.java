@@ -0,0 +1,59 @@
+package com.baturman.nlp.lemmatizers.turkish;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for lemmatizing raw text.
+ */
+public class TextLemmatizerTest extends TestCase{
+
+	/**
+	 * Create the test case
+	 *
+	 * @param testName name of the test case
+	 */
+	public TextLemmatizerTest( String testName )
+	{
+		super( testName );
+	}
+
+	/**
+	 * @return the suite of tests being tested
+	 */
+	public static Test suite()
+	{
+		return new TestSuite( TextLemmatizerTest.class );
+	}
+
+	/**
+	 * Text is tokenized, converted and case folded before lemmatization. Invalid tokens are skipped or passed through.
+	 */
+	public void testText() throws Exception{
+		TurkishLemmatizer tl = new TurkishLemmatizer();
+		tl.addStem("kitap");
+		tl.addStem("ışık");
+		tl.addStem("iğne");
+		tl.addStem("hala");
+
+		String text = "KİTABIM, 3 IŞIĞI   ve İĞNESİ (hâlâ) x";
+
+		TextLemmatizer pass = new TextLemmatizer(tl, new LetterConverter(true), TextLemmatizer.InvalidTokens.PASS_THROUGH);
+		assertEquals(Arrays.asList("kitap", "3", "ışık", "ve", "iğne", "hala", "x"), pass.lemmatize(text));
+
+		TextLemmatizer skip = new TextLemmatizer(tl, null, TextLemmatizer.InvalidTokens.SKIP);
+		assertEquals(Arrays.asList("kitap", "ışık", "ve", "iğne"), skip.lemmatize(text));
+
+		final StringBuilder sb = new StringBuilder();
+		skip.process(text, new TextLemmatizer.TokenHandler() {
+			@Override
+			public void token(CharSequence text, int start, int end, String word, String lemma, boolean valid) {
+				sb.append(text.subSequence(start, end)).append('/').append(word).append(' ');
+			}
+		});
+		assertEquals("KİTABIM/kitabım IŞIĞI/ışığı ve/ve İĞNESİ/iğnesi ", sb.toString());
+	}
+}